@@ -0,0 +1,67 @@
+package party_Planning.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import party_Planning.PartyCatalog;
+
+/**
+ * Measures loading the three files into a PartyCatalog, either by parsing the text
+ * or by reading the binary snapshot that loading the directory leaves behind
+ * @author Samarth Desai
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CatalogLoadBenchmark {
+
+	private static final long SEED = 42;
+
+	@Param({"10", "1000", "100000", "1000000"})
+	public int guests;
+
+	@Param({"50", "1000", "100000"})
+	public int catalogSize;
+
+	@Param({"1.0"})
+	public double zipfExponent;
+
+	@Param({"text", "snapshot"})
+	public String source;
+
+	private File directory;
+
+	@Setup
+	public void generateParty() throws IOException {
+		directory = new PartyDataGenerator(SEED, catalogSize, zipfExponent).writeTemporaryParty(guests);
+		//Loading the directory once writes the snapshot
+		PartyCatalog.load(directory);
+	}
+
+	@Benchmark
+	public PartyCatalog loadCatalog() {
+		if (source.equals("snapshot")) {
+			return PartyCatalog.load(directory);
+		}
+		return PartyCatalog.load(new File(directory, PartyCatalog.DRINKS_FILE_NAME), new File(directory, PartyCatalog.FOOD_FILE_NAME),
+				new File(directory, PartyCatalog.PEOPLE_FILE_NAME));
+	}
+
+}
@@ -0,0 +1,65 @@
+package party_Planning.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import party_Planning.PartyCatalog;
+import party_Planning.Plan;
+import party_Planning.SpendingAlgorithm;
+
+/**
+ * Compares the original round-by-round greedy against the indexed engine on the small parties it can still finish
+ * @author Samarth Desai
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LegacySelectionBenchmark {
+
+	private static final long SEED = 42;
+
+	@Param({"10", "100", "1000"})
+	public int guests;
+
+	@Param({"50", "500"})
+	public int catalogSize;
+
+	@Param({"1.0"})
+	public double zipfExponent;
+
+	@Param({"LEGACY", "INDEXED"})
+	public SpendingAlgorithm.Engine engine;
+
+	private PartyCatalog catalog;
+	private double budget;
+
+	@Setup
+	public void generateParty() throws IOException {
+		File directory = new PartyDataGenerator(SEED, catalogSize, zipfExponent).writeTemporaryParty(guests);
+		catalog = PartyCatalog.load(directory);
+		budget = new SpendingAlgorithm().sweep(catalog, new double[] {Double.MAX_VALUE})[0].getAmountSpent() / 2;
+	}
+
+	@Benchmark
+	public Plan solve() {
+		return new SpendingAlgorithm(engine).solve(catalog, budget);
+	}
+
+}
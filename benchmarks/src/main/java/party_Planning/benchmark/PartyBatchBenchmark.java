@@ -0,0 +1,81 @@
+package party_Planning.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import party_Planning.PartyBatch;
+import party_Planning.PartyCatalog;
+import party_Planning.SpendingAlgorithm;
+
+/**
+ * Measures planning a series of parties that share one catalog with PartyBatch, on pools of different sizes,
+ * to show how throughput grows with the number of cores
+ * @author Samarth Desai
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PartyBatchBenchmark {
+
+	private static final long SEED = 42;
+	private static final double[] BUDGETS = {25, 100, 500, 2500};
+
+	@Param({"1", "2", "4", "8"})
+	public int threads;
+
+	@Param({"32"})
+	public int parties;
+
+	@Param({"1000", "10000"})
+	public int guests;
+
+	@Param({"1000"})
+	public int catalogSize;
+
+	private ForkJoinPool pool;
+	private PartyBatch batch;
+	private List<File> guestLists;
+
+	@Setup
+	public void generateParties() throws IOException {
+		PartyDataGenerator generator = new PartyDataGenerator(SEED, catalogSize, 1.0);
+		guestLists = new ArrayList<File>();
+		for (int i = 0; i < parties; i++) {
+			guestLists.add(new File(generator.writeTemporaryParty(guests), PartyCatalog.PEOPLE_FILE_NAME));
+		}
+		pool = new ForkJoinPool(threads);
+		batch = new PartyBatch(PartyCatalog.load(guestLists.get(0).getParentFile()), new SpendingAlgorithm(), pool);
+	}
+
+	@TearDown
+	public void shutDown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public PartyBatch.Result planParties() {
+		return batch.plan(guestLists, BUDGETS);
+	}
+
+}
@@ -0,0 +1,159 @@
+package party_Planning.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import party_Planning.PartyCatalog;
+
+/**
+ * Writes synthetic people.txt, food.txt and drinks.txt files in the same format as the Party_Files,
+ * with item popularity following a Zipfian distribution so a few items are listed by most guests.
+ * The same seed always produces the same files
+ * @author Samarth Desai
+ *
+ */
+public class PartyDataGenerator {
+
+	private static final int MIN_PRICE_CENTS = 25;
+	private static final int MAX_PRICE_CENTS = 1500;
+	private static final int MAX_FOOD_PREFERENCES = 6;
+	private static final int MAX_DRINK_PREFERENCES = 4;
+	private static final String PREFERENCE_SEPARATOR = ", ";
+
+	private final Random random;
+	private final int foodCount;
+	private final int drinkCount;
+	private final double[] foodPopularity;
+	private final double[] drinkPopularity;
+
+	/**
+	 * Sets up a generator for a catalog of the given size, split roughly two to one between food and drinks
+	 * @param seed
+	 * @param catalogSize
+	 * @param zipfExponent 0 for uniform popularity, around 1 for realistic skew
+	 */
+	public PartyDataGenerator(long seed, int catalogSize, double zipfExponent) {
+
+		random = new Random(seed);
+		foodCount = Math.max(1, catalogSize * 2 / 3);
+		drinkCount = Math.max(1, catalogSize - foodCount);
+		foodPopularity = zipfDistribution(foodCount, zipfExponent);
+		drinkPopularity = zipfDistribution(drinkCount, zipfExponent);
+
+	}
+
+	/**
+	 * Writes the three files for the given number of guests into a directory
+	 * @param directory
+	 * @param guests
+	 * @throws IOException
+	 */
+	public void writeParty(File directory, int guests) throws IOException {
+		directory.mkdirs();
+		writePrices(new File(directory, PartyCatalog.FOOD_FILE_NAME), "food", foodCount);
+		writePrices(new File(directory, PartyCatalog.DRINKS_FILE_NAME), "drink", drinkCount);
+
+		BufferedWriter writer = Files.newBufferedWriter(new File(directory, PartyCatalog.PEOPLE_FILE_NAME).toPath(), StandardCharsets.UTF_8);
+		try {
+			for (int i = 0; i < guests; i++) {
+				if (i > 0) {
+					writer.newLine();
+				}
+				writer.write("guest " + i);
+				writer.newLine();
+				writePreferences(writer, "food", foodPopularity, MAX_FOOD_PREFERENCES);
+				writer.newLine();
+				writePreferences(writer, "drink", drinkPopularity, MAX_DRINK_PREFERENCES);
+			}
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Creates a fresh temporary directory holding a generated party
+	 * @param guests
+	 * @return
+	 * @throws IOException
+	 */
+	public File writeTemporaryParty(int guests) throws IOException {
+		File directory = Files.createTempDirectory("party").toFile();
+		writeParty(directory, guests);
+		return directory;
+	}
+
+	private void writePrices(File file, String prefix, int count) throws IOException {
+		BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+		try {
+			for (int i = 0; i < count; i++) {
+				if (i > 0) {
+					writer.newLine();
+				}
+				int cents = MIN_PRICE_CENTS + random.nextInt(MAX_PRICE_CENTS - MIN_PRICE_CENTS + 1);
+				writer.write("<" + prefix + " " + i + ">:" + (cents / 100) + "." + (cents % 100 < 10 ? "0" : "") + (cents % 100));
+			}
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Writes up to the given number of distinct preferences, or a blank line for a guest who wants nothing of this kind
+	 */
+	private void writePreferences(BufferedWriter writer, String prefix, double[] popularity, int maxPreferences) throws IOException {
+		int count = Math.min(random.nextInt(maxPreferences + 1), popularity.length);
+		int[] chosen = new int[count];
+		for (int i = 0; i < count; i++) {
+			int item;
+			do {
+				item = sample(popularity);
+			} while (contains(chosen, i, item));
+			chosen[i] = item;
+			if (i > 0) {
+				writer.write(PREFERENCE_SEPARATOR);
+			}
+			writer.write(prefix + " " + item);
+		}
+	}
+
+	private static boolean contains(int[] values, int length, int value) {
+		for (int i = 0; i < length; i++) {
+			if (values[i] == value) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Picks an item index from a cumulative distribution
+	 */
+	private int sample(double[] cumulative) {
+		int index = Arrays.binarySearch(cumulative, random.nextDouble());
+		return Math.min(index < 0 ? -index - 1 : index, cumulative.length - 1);
+	}
+
+	/**
+	 * Builds the cumulative distribution where item k is chosen with probability proportional to 1 / (k + 1)^exponent
+	 */
+	private static double[] zipfDistribution(int count, double exponent) {
+		double[] cumulative = new double[count];
+		double total = 0;
+		for (int i = 0; i < count; i++) {
+			total += 1 / Math.pow(i + 1, exponent);
+			cumulative[i] = total;
+		}
+		for (int i = 0; i < count; i++) {
+			cumulative[i] /= total;
+		}
+		return cumulative;
+	}
+
+}
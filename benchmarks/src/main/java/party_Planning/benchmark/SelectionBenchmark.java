@@ -0,0 +1,78 @@
+package party_Planning.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import party_Planning.PartyCatalog;
+import party_Planning.Plan;
+import party_Planning.SpendingAlgorithm;
+
+/**
+ * Measures SpendingAlgorithm.solve and the budget sweep over generated parties of increasing size.
+ * The budget is a fraction of what it would cost to buy every preference, so the solve stops part way through
+ * @author Samarth Desai
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SelectionBenchmark {
+
+	private static final long SEED = 42;
+	private static final int SWEEP_STEPS = 100;
+
+	@Param({"10", "1000", "100000", "1000000"})
+	public int guests;
+
+	@Param({"50", "1000", "100000"})
+	public int catalogSize;
+
+	@Param({"1.0"})
+	public double zipfExponent;
+
+	@Param({"0.5"})
+	public double budgetFraction;
+
+	private PartyCatalog catalog;
+	private double budget;
+	private double[] budgets;
+
+	@Setup
+	public void generateParty() throws IOException {
+		File directory = new PartyDataGenerator(SEED, catalogSize, zipfExponent).writeTemporaryParty(guests);
+		catalog = PartyCatalog.load(directory);
+		double fullCost = new SpendingAlgorithm().sweep(catalog, new double[] {Double.MAX_VALUE})[0].getAmountSpent();
+		budget = fullCost * budgetFraction;
+		budgets = new double[SWEEP_STEPS];
+		for (int i = 0; i < SWEEP_STEPS; i++) {
+			budgets[i] = fullCost * (i + 1) / SWEEP_STEPS;
+		}
+	}
+
+	@Benchmark
+	public Plan indexedSelect() {
+		return new SpendingAlgorithm(SpendingAlgorithm.Engine.INDEXED).solve(catalog, budget);
+	}
+
+	@Benchmark
+	public Plan[] indexedSweep() {
+		return new SpendingAlgorithm().sweep(catalog, budgets);
+	}
+
+}
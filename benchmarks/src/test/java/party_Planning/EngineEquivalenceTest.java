@@ -0,0 +1,114 @@
+package party_Planning;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks that the indexed engine, the budget sweep, the purchase stream and planning sessions buy the same items, leave the
+ * same guests their remaining items and spend the same as the legacy engine, on seeded parties where several items share
+ * a price and guests list items more than once, so every path has to break ties and split items the way the original did
+ * @author Samarth Desai
+ *
+ */
+public class EngineEquivalenceTest {
+
+	private static final long[] SEEDS = {1, 7, 42};
+	/** Small enough for the guests to fall into shared classes, and large enough for most of them to have their own order */
+	private static final int[] CATALOG_SIZES = {3, 12};
+	private static final int GUESTS = 300;
+	/** Guests added to a session one by one after it was started from the others */
+	private static final int ADDED_GUESTS = 20;
+	private static final int BUDGET_STEPS = 20;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void enginesMatchLegacy() throws IOException {
+		LegacySelectionEngine legacy = new LegacySelectionEngine();
+		IndexedSelectionEngine grouped = new IndexedSelectionEngine(PreferenceIndex.DEFAULT_PARALLEL_THRESHOLD, true);
+		IndexedSelectionEngine perGuest = new IndexedSelectionEngine(PreferenceIndex.DEFAULT_PARALLEL_THRESHOLD, false);
+		for (long seed : SEEDS) {
+			for (int catalogSize : CATALOG_SIZES) {
+				String party = "seed " + seed + ", catalog " + catalogSize;
+				PartyCatalog catalog = TestParties.loadParty(TestParties.writeTiedParty(folder, seed, catalogSize, GUESTS));
+				double[] budgets = TestParties.budgets(catalog, BUDGET_STEPS);
+				Plan[] groupedSweep = IndexedSelectionEngine.sweep(catalog, budgets, true);
+				Plan[] perGuestSweep = IndexedSelectionEngine.sweep(catalog, budgets, false);
+				PlanningSession session = new PlanningSession(catalog, 0);
+				for (int i = 0; i < budgets.length; i++) {
+					String message = party + ", budget " + budgets[i];
+					Plan expected = legacy.solve(catalog, budgets[i]);
+					assertSamePlan(message + ", grouped", expected, grouped.solve(catalog, budgets[i]));
+					assertSamePlan(message + ", per guest", expected, perGuest.solve(catalog, budgets[i]));
+					assertSamePlan(message + ", grouped sweep", expected, groupedSweep[i]);
+					assertSamePlan(message + ", per-guest sweep", expected, perGuestSweep[i]);
+					assertSamePlan(message + ", session", expected, session.setBudget(budgets[i]));
+					assertSamePurchases(message + ", stream", expected, IndexedSelectionEngine.purchases(catalog, budgets[i]));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void sessionGuestsMatchLegacy() throws IOException {
+		LegacySelectionEngine legacy = new LegacySelectionEngine();
+		for (long seed : SEEDS) {
+			for (int catalogSize : CATALOG_SIZES) {
+				String party = "seed " + seed + ", catalog " + catalogSize;
+				//The same seed writes the same prices and first guests, so the smaller party is the start of the larger one
+				PartyCatalog invited = TestParties.loadParty(TestParties.writeTiedParty(folder, seed, catalogSize, GUESTS - ADDED_GUESTS));
+				PartyCatalog catalog = TestParties.loadParty(TestParties.writeTiedParty(folder, seed, catalogSize, GUESTS));
+				double[] budgets = TestParties.budgets(catalog, BUDGET_STEPS);
+				PlanningSession session = new PlanningSession(invited, 0);
+				for (int guest = invited.getGuestCount(); guest < catalog.getGuestCount(); guest++) {
+					session.addGuest(catalog.getGuestName(guest), preferences(catalog, guest));
+				}
+				for (double budget : budgets) {
+					assertSamePlan(party + ", budget " + budget, legacy.solve(catalog, budget), session.setBudget(budget));
+				}
+			}
+		}
+	}
+
+	private static List<String> preferences(PartyCatalog catalog, int guest) {
+		List<String> preferences = new ArrayList<String>();
+		for (int slot = catalog.getPreferenceStart(guest); slot < catalog.getPreferenceStart(guest + 1); slot++) {
+			preferences.add(catalog.getItemName(catalog.getPreferenceItem(slot)));
+		}
+		return preferences;
+	}
+
+	private static void assertSamePlan(String message, Plan expected, Plan actual) {
+		assertEquals(message, expected.getItemsBought(), actual.getItemsBought());
+		assertEquals(message, expected.getRemainingItems(), actual.getRemainingItems());
+		assertEquals(message, expected.getAmountSpent(), actual.getAmountSpent(), 0);
+	}
+
+	/**
+	 * Adds up the units read from a purchase stream, which has no remaining items, and checks them against a plan
+	 */
+	private static void assertSamePurchases(String message, Plan expected, Iterator<Purchase> purchases) {
+		Map<String, Integer> itemsBought = new HashMap<String, Integer>();
+		long spentCents = 0;
+		while (purchases.hasNext()) {
+			Purchase purchase = purchases.next();
+			Integer units = itemsBought.get(purchase.getItemName());
+			itemsBought.put(purchase.getItemName(), units == null ? 1 : units + 1);
+			spentCents = purchase.getRunningTotalCents();
+		}
+		assertEquals(message, expected.getItemsBought(), itemsBought);
+		assertEquals(message, expected.getAmountSpent(), spentCents / 100.0, 0);
+	}
+
+}
@@ -0,0 +1,53 @@
+package party_Planning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks that solving over guest classes buys the same items, leaves the same guests their remaining items and spends the same
+ * as solving guest by guest, on seeded generated guest lists drawn from catalogs small enough for most guests to share a class
+ * @author Samarth Desai
+ *
+ */
+public class GuestClassesTest {
+
+	private static final long[] SEEDS = {1, 7, 42};
+	private static final int[] CATALOG_SIZES = {3, 4, 6};
+	private static final double[] ZIPF_EXPONENTS = {0, 1.0};
+	private static final int GUESTS = 2000;
+	private static final int BUDGET_STEPS = 40;
+	private static final String PARTY = "party";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void classPlansMatchPerGuest() throws IOException {
+		IndexedSelectionEngine grouped = new IndexedSelectionEngine(PreferenceIndex.DEFAULT_PARALLEL_THRESHOLD, true);
+		IndexedSelectionEngine perGuest = new IndexedSelectionEngine(PreferenceIndex.DEFAULT_PARALLEL_THRESHOLD, false);
+		for (long seed : SEEDS) {
+			for (int catalogSize : CATALOG_SIZES) {
+				for (double zipfExponent : ZIPF_EXPONENTS) {
+					String party = "seed " + seed + ", catalog " + catalogSize + ", exponent " + zipfExponent;
+					PartyCatalog catalog = TestParties.generateParty(folder, seed, catalogSize, zipfExponent, GUESTS);
+					assertTrue(party, catalog.guestClasses().grouped);
+					double[] budgets = TestParties.budgets(catalog, BUDGET_STEPS);
+					for (double budget : budgets) {
+						assertEquals(party + ", budget " + budget,
+								PlanWriter.toJson(PARTY, new Plan[] {perGuest.solve(catalog, budget)}),
+								PlanWriter.toJson(PARTY, new Plan[] {grouped.solve(catalog, budget)}));
+					}
+					assertEquals(party, PlanWriter.toJson(PARTY, IndexedSelectionEngine.sweep(catalog, budgets, false)),
+							PlanWriter.toJson(PARTY, IndexedSelectionEngine.sweep(catalog, budgets, true)));
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,70 @@
+package party_Planning;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks that an index built in parallel is the same as one built sequentially, and that the plans made from it are too,
+ * on seeded generated guest lists large enough to be split into several ranges
+ * @author Samarth Desai
+ *
+ */
+public class ParallelIndexTest {
+
+	private static final long[] SEEDS = {1, 7, 42};
+	/** Enough guests for PreferenceIndex to split them into more than one range */
+	private static final int GUESTS = 40000;
+	/** Large enough that the guests do not fall into a few shared classes, so the per-guest path is the one solved */
+	private static final int CATALOG_SIZE = 200;
+	private static final double ZIPF_EXPONENT = 1.0;
+	private static final int PARALLEL = 1;
+	private static final int SEQUENTIAL = Integer.MAX_VALUE;
+	private static final int BUDGET_STEPS = 8;
+	private static final String PARTY = "party";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void parallelIndexMatchesSequential() throws IOException {
+		for (long seed : SEEDS) {
+			PartyCatalog catalog = TestParties.generateParty(folder, seed, CATALOG_SIZE, ZIPF_EXPONENT, GUESTS);
+			PreferenceIndex sequential = new PreferenceIndex(catalog, SEQUENTIAL);
+			PreferenceIndex parallel = new PreferenceIndex(catalog, PARALLEL);
+			assertArrayEquals(sequential.holderStart, parallel.holderStart);
+			assertArrayEquals(sequential.holderGuest, parallel.holderGuest);
+			assertArrayEquals(sequential.holderPosition, parallel.holderPosition);
+			assertArrayEquals(sequential.pricedItems, parallel.pricedItems);
+		}
+	}
+
+	@Test
+	public void parallelPlansMatchSequential() throws IOException {
+		for (long seed : SEEDS) {
+			File directory = TestParties.writeParty(folder, seed, CATALOG_SIZE, ZIPF_EXPONENT, GUESTS);
+			//A catalog keeps the index its first solve builds, so each engine gets a catalog of its own
+			PartyCatalog sequentialCatalog = TestParties.loadParty(directory);
+			PartyCatalog parallelCatalog = TestParties.loadParty(directory);
+			assertFalse(sequentialCatalog.guestClasses().grouped);
+			IndexedSelectionEngine sequentialEngine = new IndexedSelectionEngine(SEQUENTIAL);
+			IndexedSelectionEngine parallelEngine = new IndexedSelectionEngine(PARALLEL);
+			double[] budgets = TestParties.budgets(sequentialCatalog, BUDGET_STEPS);
+			for (double budget : budgets) {
+				assertEquals("seed " + seed + ", budget " + budget,
+						PlanWriter.toJson(PARTY, new Plan[] {sequentialEngine.solve(sequentialCatalog, budget)}),
+						PlanWriter.toJson(PARTY, new Plan[] {parallelEngine.solve(parallelCatalog, budget)}));
+			}
+			assertEquals("seed " + seed, PlanWriter.toJson(PARTY, IndexedSelectionEngine.sweep(sequentialCatalog, budgets)),
+					PlanWriter.toJson(PARTY, IndexedSelectionEngine.sweep(parallelCatalog, budgets)));
+		}
+	}
+
+}
@@ -0,0 +1,147 @@
+package party_Planning;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.rules.TemporaryFolder;
+
+import party_Planning.benchmark.PartyDataGenerator;
+
+/**
+ * Writes and loads the seeded parties the engine tests solve, and picks the budgets they are solved with
+ * @author Samarth Desai
+ *
+ */
+final class TestParties {
+
+	/** Quarter dollars add up exactly in a double, so the legacy engine's totals never drift from the cents */
+	private static final String[] TIED_PRICES = {"0.25", "0.50", "0.75", "1.00", "1.25"};
+	private static final int MAX_FIRST_LINE_PREFERENCES = 6;
+	private static final int MAX_SECOND_LINE_PREFERENCES = 3;
+	private static final String PREFERENCE_SEPARATOR = ", ";
+
+	private TestParties() {
+	}
+
+	/**
+	 * Writes a party from PartyDataGenerator into a new folder
+	 * @param folder
+	 * @param seed
+	 * @param catalogSize
+	 * @param zipfExponent
+	 * @param guests
+	 * @return
+	 * @throws IOException
+	 */
+	static File writeParty(TemporaryFolder folder, long seed, int catalogSize, double zipfExponent, int guests) throws IOException {
+		File directory = folder.newFolder();
+		new PartyDataGenerator(seed, catalogSize, zipfExponent).writeParty(directory, guests);
+		return directory;
+	}
+
+	static PartyCatalog generateParty(TemporaryFolder folder, long seed, int catalogSize, double zipfExponent, int guests) throws IOException {
+		return loadParty(writeParty(folder, seed, catalogSize, zipfExponent, guests));
+	}
+
+	/**
+	 * Writes a party whose few prices are shared by several items, and whose guests may list an item more than once,
+	 * on the same line or on both, so that the order ties and partly affordable items are broken in shows in the plans
+	 * @param folder
+	 * @param seed
+	 * @param catalogSize
+	 * @param guests
+	 * @return
+	 * @throws IOException
+	 */
+	static File writeTiedParty(TemporaryFolder folder, long seed, int catalogSize, int guests) throws IOException {
+		File directory = folder.newFolder();
+		Random random = new Random(seed);
+		int foodCount = Math.max(1, catalogSize * 2 / 3);
+		int drinkCount = Math.max(1, catalogSize - foodCount);
+		writeTiedPrices(new File(directory, PartyCatalog.FOOD_FILE_NAME), "food", foodCount, random);
+		writeTiedPrices(new File(directory, PartyCatalog.DRINKS_FILE_NAME), "drink", drinkCount, random);
+
+		BufferedWriter writer = Files.newBufferedWriter(new File(directory, PartyCatalog.PEOPLE_FILE_NAME).toPath(), StandardCharsets.UTF_8);
+		try {
+			for (int i = 0; i < guests; i++) {
+				if (i > 0) {
+					writer.newLine();
+				}
+				writer.write("guest " + i);
+				writer.newLine();
+				writeRepeatedPreferences(writer, foodCount, drinkCount, MAX_FIRST_LINE_PREFERENCES, random);
+				writer.newLine();
+				writeRepeatedPreferences(writer, foodCount, drinkCount, MAX_SECOND_LINE_PREFERENCES, random);
+			}
+		}
+		finally {
+			writer.close();
+		}
+		return directory;
+	}
+
+	static PartyCatalog loadParty(File directory) {
+		return PartyCatalog.load(new File(directory, PartyCatalog.DRINKS_FILE_NAME), new File(directory, PartyCatalog.FOOD_FILE_NAME),
+				new File(directory, PartyCatalog.PEOPLE_FILE_NAME));
+	}
+
+	/**
+	 * Budgets from nothing up to more than buying every preference costs, together with exactly what the per-guest path spends
+	 * at each of them, so that budgets ending on a whole round of purchases are covered as well as ones splitting a round
+	 * @param catalog
+	 * @param steps
+	 * @return
+	 */
+	static double[] budgets(PartyCatalog catalog, int steps) {
+		double total = IndexedSelectionEngine.sweep(catalog, new double[] {Double.MAX_VALUE}, false)[0].getAmountSpent();
+		double[] stepBudgets = new double[steps + 3];
+		for (int step = 0; step <= steps; step++) {
+			stepBudgets[step] = Math.round(total * step / steps * 100) / 100.0;
+		}
+		stepBudgets[steps + 1] = total + 1;
+		stepBudgets[steps + 2] = -1;
+		Plan[] stepPlans = IndexedSelectionEngine.sweep(catalog, stepBudgets, false);
+		double[] budgets = new double[stepBudgets.length * 2];
+		for (int step = 0; step < stepBudgets.length; step++) {
+			budgets[step * 2] = stepBudgets[step];
+			budgets[step * 2 + 1] = stepPlans[step].getAmountSpent();
+		}
+		return budgets;
+	}
+
+	private static void writeTiedPrices(File file, String prefix, int count, Random random) throws IOException {
+		BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+		try {
+			for (int i = 0; i < count; i++) {
+				if (i > 0) {
+					writer.newLine();
+				}
+				writer.write("<" + prefix + " " + i + ">:" + TIED_PRICES[random.nextInt(TIED_PRICES.length)]);
+			}
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Writes up to the given number of preferences drawn with replacement from the whole menu, so the same item can be
+	 * listed more than once on a line or on both lines
+	 */
+	private static void writeRepeatedPreferences(BufferedWriter writer, int foodCount, int drinkCount, int maxPreferences, Random random)
+			throws IOException {
+		int count = random.nextInt(maxPreferences + 1);
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				writer.write(PREFERENCE_SEPARATOR);
+			}
+			int item = random.nextInt(foodCount + drinkCount);
+			writer.write(item < foodCount ? "food " + item : "drink " + (item - foodCount));
+		}
+	}
+
+}
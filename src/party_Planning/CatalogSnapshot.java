@@ -0,0 +1,279 @@
+package party_Planning;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Binary snapshot of a parsed catalog, so a later start can skip parsing the text files. The file holds, in order:
+ * a magic number and format version; the path, size, modification time and checksum of the drinks, food and people files;
+ * the number of lines in the people file;
+ * the item names as a table of offsets into one block of UTF-8 bytes; the unit price of each priced item in dollars
+ * and of every item in cents; the guest names as a second string table; and each guest's preferences as item ids,
+ * found through an array of offsets into one flat array.
+ *
+ * A snapshot is read with a single memory-mapped read, and is only used if each text file still has the path, size,
+ * modification time and checksum it was taken from. A stale, damaged or older format snapshot is ignored, and the text is parsed instead
+ * @author Samarth Desai
+ *
+ */
+final class CatalogSnapshot {
+
+	private static final int MAGIC = 0x50435350;
+	private static final int FORMAT_VERSION = 2;
+	private static final int FILE_COUNT = 3;
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private CatalogSnapshot() {
+	}
+
+	/**
+	 * Reads the snapshot if it was taken from the given files as they are now
+	 * @param snapshotFile
+	 * @param catalogFiles drinks, food and people files
+	 * @return the catalog, or null if there is no usable snapshot
+	 */
+	static PartyCatalog read(File snapshotFile, File[] catalogFiles) {
+		if (!snapshotFile.isFile()) {
+			return null;
+		}
+		PlannerMetrics.Timer timer = PlannerMetrics.start(PlannerMetrics.Phase.SNAPSHOT_READ);
+		try {
+			FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ);
+			try {
+				if (channel.size() > Integer.MAX_VALUE) {
+					return null;
+				}
+				return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), catalogFiles);
+			}
+			finally {
+				channel.close();
+				PlannerMetrics.stop(timer);
+			}
+		}
+		catch (IOException e) {
+			return null;
+		}
+		catch (RuntimeException e) {
+			//A truncated or damaged snapshot reads past its end or finds impossible lengths, and is parsed again from the text
+			return null;
+		}
+	}
+
+	private static PartyCatalog read(ByteBuffer snapshot, File[] catalogFiles) {
+		if (snapshot.getInt() != MAGIC || snapshot.getInt() != FORMAT_VERSION) {
+			return null;
+		}
+		long[] modified = new long[FILE_COUNT];
+		long[] sizes = new long[FILE_COUNT];
+		long[] hashes = new long[FILE_COUNT];
+		for (int i = 0; i < FILE_COUNT; i++) {
+			String path = readStrings(snapshot, 1)[0];
+			sizes[i] = snapshot.getLong();
+			modified[i] = snapshot.getLong();
+			hashes[i] = snapshot.getLong();
+			File file = catalogFiles[i];
+			if (!path.equals(file.getAbsolutePath()) || file.length() != sizes[i] || file.lastModified() != modified[i]) {
+				return null;
+			}
+			//A file rewritten within the clock's resolution keeps its size and time, so the contents are checked as well
+			if (PartyCatalog.hash(file) != hashes[i]) {
+				return null;
+			}
+		}
+		long peopleLines = snapshot.getLong();
+
+		int itemCount = snapshot.getInt();
+		int pricedCount = snapshot.getInt();
+		String[] itemNames = readStrings(snapshot, itemCount);
+		Map<String, Double> consumables = new LinkedHashMap<String, Double>(pricedCount * 2);
+		for (int item = 0; item < pricedCount; item++) {
+			consumables.put(itemNames[item], snapshot.getDouble());
+		}
+		long[] priceCents = new long[itemCount];
+		snapshot.asLongBuffer().get(priceCents);
+		snapshot.position(snapshot.position() + itemCount * 8);
+
+		int guestCount = snapshot.getInt();
+		String[] guestNames = readStrings(snapshot, guestCount);
+		int[] preferenceStart = new int[guestCount + 1];
+		snapshot.asIntBuffer().get(preferenceStart);
+		snapshot.position(snapshot.position() + preferenceStart.length * 4);
+		int[] preferenceItems = new int[preferenceStart[guestCount]];
+		snapshot.asIntBuffer().get(preferenceItems);
+
+		return new PartyCatalog(catalogFiles, Collections.unmodifiableMap(consumables), itemNames, priceCents,
+				guestNames, preferenceStart, preferenceItems, peopleLines, modified, sizes, hashes);
+	}
+
+	/**
+	 * Writes a snapshot of the catalog to a temporary file and moves it into place, so a reader never sees half a snapshot.
+	 * The snapshot only speeds up the next start, so it is skipped if it cannot be written
+	 * @param snapshotFile
+	 * @param catalog
+	 */
+	static void write(File snapshotFile, PartyCatalog catalog) {
+		File directory = snapshotFile.getAbsoluteFile().getParentFile();
+		if (directory == null || !catalog.getFile(PartyCatalog.PEOPLE).isFile()) {
+			return;
+		}
+		File temporary = null;
+		try {
+			temporary = File.createTempFile(snapshotFile.getName(), ".tmp", directory);
+			SnapshotWriter out = new SnapshotWriter(FileChannel.open(temporary.toPath(), StandardOpenOption.WRITE));
+			try {
+				write(out, catalog);
+			}
+			finally {
+				out.close();
+			}
+			Files.move(temporary.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException e) {
+			if (temporary != null) {
+				temporary.delete();
+			}
+		}
+	}
+
+	private static void write(SnapshotWriter out, PartyCatalog catalog) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(FORMAT_VERSION);
+		for (int i = 0; i < FILE_COUNT; i++) {
+			writeStrings(out, new String[] {catalog.getFile(i).getAbsolutePath()});
+			out.writeLong(catalog.getFileSize(i));
+			out.writeLong(catalog.getModifiedTime(i));
+			out.writeLong(catalog.getContentHash(i));
+		}
+		out.writeLong(catalog.getPeopleLineCount());
+
+		int itemCount = catalog.getItemCount();
+		Map<String, Double> consumables = catalog.getConsumables();
+		out.writeInt(itemCount);
+		out.writeInt(consumables.size());
+		String[] itemNames = new String[itemCount];
+		for (int item = 0; item < itemCount; item++) {
+			itemNames[item] = catalog.getItemName(item);
+		}
+		writeStrings(out, itemNames);
+		for (double price : consumables.values()) {
+			out.writeDouble(price);
+		}
+		for (int item = 0; item < itemCount; item++) {
+			out.writeLong(catalog.getPriceCents(item));
+		}
+
+		int guestCount = catalog.getGuestCount();
+		out.writeInt(guestCount);
+		String[] guestNames = new String[guestCount];
+		for (int guest = 0; guest < guestCount; guest++) {
+			guestNames[guest] = catalog.getGuestName(guest);
+		}
+		writeStrings(out, guestNames);
+		for (int guest = 0; guest <= guestCount; guest++) {
+			out.writeInt(catalog.getPreferenceStart(guest));
+		}
+		for (int position = 0; position < catalog.getPreferenceCount(); position++) {
+			out.writeInt(catalog.getPreferenceItem(position));
+		}
+	}
+
+	/**
+	 * Writes strings as an array of offsets into a block of UTF-8 bytes, with one extra offset for the end of the block
+	 */
+	private static void writeStrings(SnapshotWriter out, String[] strings) throws IOException {
+		byte[][] encoded = new byte[strings.length][];
+		int offset = 0;
+		out.writeInt(offset);
+		for (int i = 0; i < strings.length; i++) {
+			encoded[i] = strings[i].getBytes(StandardCharsets.UTF_8);
+			offset += encoded[i].length;
+			out.writeInt(offset);
+		}
+		for (byte[] string : encoded) {
+			out.write(string);
+		}
+	}
+
+	/**
+	 * Writes big-endian values through a buffer straight to a file channel
+	 */
+	private static final class SnapshotWriter {
+
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+		private SnapshotWriter(FileChannel fileChannel) {
+			channel = fileChannel;
+		}
+
+		private void writeInt(int value) throws IOException {
+			makeRoom(4);
+			buffer.putInt(value);
+		}
+
+		private void writeLong(long value) throws IOException {
+			makeRoom(8);
+			buffer.putLong(value);
+		}
+
+		private void writeDouble(double value) throws IOException {
+			makeRoom(8);
+			buffer.putDouble(value);
+		}
+
+		private void write(byte[] bytes) throws IOException {
+			for (int written = 0; written < bytes.length;) {
+				makeRoom(1);
+				int length = Math.min(buffer.remaining(), bytes.length - written);
+				buffer.put(bytes, written, length);
+				written += length;
+			}
+		}
+
+		private void makeRoom(int bytes) throws IOException {
+			if (buffer.remaining() < bytes) {
+				flush();
+			}
+		}
+
+		private void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+
+		private void close() throws IOException {
+			try {
+				flush();
+			}
+			finally {
+				channel.close();
+			}
+		}
+	}
+
+	private static String[] readStrings(ByteBuffer snapshot, int count) {
+		int[] offsets = new int[count + 1];
+		snapshot.asIntBuffer().get(offsets);
+		snapshot.position(snapshot.position() + offsets.length * 4);
+		byte[] block = new byte[offsets[count]];
+		snapshot.get(block);
+		String[] strings = new String[count];
+		for (int i = 0; i < count; i++) {
+			strings[i] = new String(block, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+		}
+		return strings;
+	}
+
+}
@@ -0,0 +1,187 @@
+package party_Planning;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the newest parsed version of a catalog, reloading it when the drinks, food or people file changes on disk.
+ *
+ * A WatchService on the files' directories wakes a background thread when one of the files is created, written or deleted.
+ * The thread waits until the files have been quiet for a moment, so an editor saving in several writes causes one reload,
+ * and then refreshes the catalog, hashing every file so an edit is seen even if it left the size and modification time as they were,
+ * and parsing only the files whose contents changed. The new catalog is swapped in
+ * with one atomic step: a solve that already holds the old catalog finishes with it, and every later call sees the new one.
+ * If the directories cannot be watched, the modification times and sizes of the files are checked on each call instead
+ * @author Samarth Desai
+ *
+ */
+public final class CatalogWatcher implements Closeable {
+
+	private static final long QUIET_MILLIS = 100;
+	private static final String WATCH_THREAD_NAME = "catalog-watcher";
+
+	private final AtomicReference<PartyCatalog> catalog;
+	private final WatchService watchService;
+	private final Map<WatchKey, Set<Path>> watchedNames = new HashMap<WatchKey, Set<Path>>();
+
+	/**
+	 * Starts watching the files the catalog was parsed from
+	 * @param initial
+	 */
+	public CatalogWatcher(PartyCatalog initial) {
+
+		catalog = new AtomicReference<PartyCatalog>(initial);
+		watchService = watch(initial);
+		if (watchService != null) {
+			Thread watchThread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					watchFiles();
+				}
+			}, WATCH_THREAD_NAME);
+			watchThread.setDaemon(true);
+			watchThread.start();
+		}
+
+	}
+
+	/**
+	 * Registers the directory of each catalog file with a new WatchService
+	 * @param watched
+	 * @return the WatchService, or null if a directory cannot be watched
+	 */
+	private WatchService watch(PartyCatalog watched) {
+		WatchService service = null;
+		try {
+			service = FileSystems.getDefault().newWatchService();
+			for (int i = PartyCatalog.DRINKS; i <= PartyCatalog.PEOPLE; i++) {
+				Path file = watched.getFile(i).getAbsoluteFile().toPath();
+				WatchKey key = file.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+				Set<Path> names = watchedNames.get(key);
+				if (names == null) {
+					names = new HashSet<Path>();
+					watchedNames.put(key, names);
+				}
+				names.add(file.getFileName());
+			}
+			return service;
+		}
+		catch (IOException e) {
+			close(service);
+		}
+		catch (UnsupportedOperationException e) {
+			close(service);
+		}
+		return null;
+	}
+
+	/**
+	 * Reloads the catalog each time a change to one of its files has settled, until the WatchService is closed
+	 */
+	private void watchFiles() {
+		try {
+			while (true) {
+				if (isCatalogChange(watchService.take())) {
+					//Later events while the files settle are part of the same change
+					WatchKey next;
+					while ((next = watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+						isCatalogChange(next);
+					}
+					reload();
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch (ClosedWatchServiceException e) {
+			//Closed by close(), which ends the thread
+		}
+	}
+
+	/**
+	 * Takes the key's pending events and puts it back to be signalled again
+	 * @param key
+	 * @return whether an event concerns one of the catalog files, or events may have been lost
+	 */
+	private boolean isCatalogChange(WatchKey key) {
+		Set<Path> names = watchedNames.get(key);
+		boolean change = false;
+		for (WatchEvent<?> event : key.pollEvents()) {
+			change |= event.kind() == StandardWatchEventKinds.OVERFLOW || names != null && names.contains(event.context());
+		}
+		key.reset();
+		return change;
+	}
+
+	/**
+	 * Parses the files whose contents changed on disk and swaps the new catalog in for every later call
+	 */
+	public void reload() {
+		reload(true);
+	}
+
+	/**
+	 * Refreshes the catalog and swaps the new one in
+	 * @param checkContents whether to hash every file, or only those whose modification time or size changed
+	 */
+	private void reload(boolean checkContents) {
+		PartyCatalog current = catalog.get();
+		try {
+			PartyCatalog refreshed = checkContents ? current.refreshContents() : current.refresh();
+			if (refreshed != current) {
+				catalog.compareAndSet(current, refreshed);
+			}
+		}
+		catch (RuntimeException e) {
+			//A file that is half written or has a bad price keeps the last good catalog until the next change
+			System.err.println("Could not reload the party files: " + e);
+		}
+	}
+
+	/**
+	 * Sends the newest catalog, without touching the disk unless the files could not be watched
+	 * @return
+	 */
+	public PartyCatalog getCatalog() {
+		if (watchService == null) {
+			reload(false);
+		}
+		return catalog.get();
+	}
+
+	/**
+	 * Stops watching the files. The last catalog loaded stays available
+	 */
+	@Override
+	public void close() {
+		close(watchService);
+	}
+
+	private static void close(WatchService service) {
+		if (service == null) {
+			return;
+		}
+		try {
+			service.close();
+		}
+		catch (IOException e) {
+			//Nothing more to release
+		}
+	}
+
+}
@@ -0,0 +1,417 @@
+package party_Planning;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chooses the food and drinks that fulfill the most preferences within the budget and, among all such choices,
+ * the one that leaves the least of the budget unspent.
+ *
+ * The most preferences are always fulfilled by the cheapest units, so the count is found by filling the budget
+ * cheapest-first. Which units to buy for that count is a knapsack over prices in cents: small instances are solved
+ * exactly with a dynamic program, larger ones with branch-and-bound using the linear relaxation as the bound.
+ * The search is anytime: when the time limit passes it returns the best plan found so far
+ * @author Samarth Desai
+ *
+ */
+public class ExactSelectionEngine implements SelectionStrategy {
+
+	public static final long DEFAULT_TIME_LIMIT_MILLIS = 2000;
+	private static final long DYNAMIC_PROGRAM_CELLS = 4000000L;
+	private static final long DYNAMIC_PROGRAM_WORK = 100000000L;
+	private static final int DEADLINE_CHECK_INTERVAL = 4096;
+
+	private final long timeLimitNanos;
+
+	/**
+	 * Sets up the engine with the default time limit
+	 */
+	public ExactSelectionEngine() {
+		this(DEFAULT_TIME_LIMIT_MILLIS);
+	}
+
+	/**
+	 * Sets up the engine with a time limit for each solve
+	 * @param timeLimitMillis how long the branch-and-bound search may run before returning its best plan so far
+	 */
+	public ExactSelectionEngine(long timeLimitMillis) {
+
+		timeLimitNanos = timeLimitMillis * 1000000L;
+
+	}
+
+	/**
+	 * Finds the plan, which is marked incomplete if the time limit ran out before the search could prove it optimal
+	 * @param catalog
+	 * @param budget
+	 * @return
+	 */
+	@Override
+	public Plan solve(PartyCatalog catalog, double budget) {
+		return new Search(catalog).solve(budget, System.nanoTime() + timeLimitNanos);
+	}
+
+	/**
+	 * State of one solve: the priced items and the prefix sums used to bound the search
+	 */
+	private static class Search {
+
+		private final PartyCatalog catalog;
+		private PreferenceIndex index;
+		private ItemUnits[] items;
+		private long[] unitsBefore;
+		private long[] costBefore;
+		private boolean optimal;
+
+		private Search(PartyCatalog partyCatalog) {
+			catalog = partyCatalog;
+		}
+
+		private Plan solve(double budget, long deadline) {
+
+			long budgetCents = PartyCatalog.budgetToCents(budget);
+			createItems();
+			PlannerMetrics.Timer timer = PlannerMetrics.start(PlannerMetrics.Phase.SELECTION);
+
+			//Cheapest-first fill gives the largest number of preferences that can be fulfilled
+			Arrays.sort(items, ItemUnits.CHEAPEST_FIRST);
+			long[] cheapest = new long[items.length];
+			long unitCount = 0;
+			long cheapestCost = 0;
+			for (int i = 0; i < items.length && cheapestCost <= budgetCents; i++) {
+				long affordable = items[i].priceCents == 0 ? items[i].size() : Math.min(items[i].size(), (budgetCents - cheapestCost) / items[i].priceCents);
+				cheapest[i] = affordable;
+				unitCount += affordable;
+				cheapestCost += affordable * items[i].priceCents;
+				if (affordable < items[i].size()) {
+					break;
+				}
+			}
+
+			//Every later search works on the most expensive items first
+			reverse(items);
+			reverse(cheapest);
+			prepareBounds();
+
+			long[] chosen;
+			if (cheapestCost == budgetCents || unitCount == unitsBefore[items.length]) {
+				chosen = cheapest;
+				optimal = true;
+			}
+			//Both sides are bounded before they are multiplied, so a budget clamped to Long.MAX_VALUE cannot overflow the products
+			else if (budgetCents < DYNAMIC_PROGRAM_CELLS && unitCount < DYNAMIC_PROGRAM_CELLS
+					&& (unitCount + 1) * (budgetCents + 1) <= DYNAMIC_PROGRAM_CELLS
+					&& (unitCount + 1) * (budgetCents + 1) * chunkCount(unitCount) <= DYNAMIC_PROGRAM_WORK) {
+				chosen = dynamicProgram((int) unitCount, (int) budgetCents);
+				optimal = true;
+			}
+			else {
+				chosen = branchAndBound(unitCount, budgetCents, cheapest, cheapestCost, deadline);
+			}
+
+			Map<String, Integer> itemsBoughtMap = new HashMap<String, Integer>();
+			long spentCents = 0;
+			for (int i = 0; i < items.length; i++) {
+				if (chosen[i] > 0) {
+					itemsBoughtMap.put(items[i].name, (int) chosen[i]);
+					spentCents += chosen[i] * items[i].priceCents;
+					items[i].bought = (int) chosen[i];
+				}
+			}
+			PlannerMetrics.stop(timer);
+
+			return new Plan(budget, itemsBoughtMap, createRemainingItems(), spentCents / 100.0, optimal);
+
+		}
+
+		/**
+		 * Groups the preference units by priced item, keeping each item's guests in the order they appear in people.txt
+		 */
+		private void createItems() {
+			index = catalog.preferenceIndex(PreferenceIndex.DEFAULT_PARALLEL_THRESHOLD);
+			items = new ItemUnits[index.pricedItems.length];
+			for (int i = 0; i < items.length; i++) {
+				items[i] = new ItemUnits(index, index.pricedItems[i]);
+			}
+		}
+
+		/**
+		 * Prefix sums of unit counts and costs over the items, most expensive first,
+		 * used to bound what the remaining items can still add
+		 */
+		private void prepareBounds() {
+			unitsBefore = new long[items.length + 1];
+			costBefore = new long[items.length + 1];
+			for (int i = 0; i < items.length; i++) {
+				unitsBefore[i + 1] = unitsBefore[i] + items[i].size();
+				costBefore[i + 1] = costBefore[i] + items[i].size() * items[i].priceCents;
+			}
+		}
+
+		/**
+		 * Cost of the first units in most-expensive-first order
+		 * @param units
+		 * @return
+		 */
+		private long costOfUnits(long units) {
+			int item = Arrays.binarySearch(unitsBefore, units);
+			if (item >= 0) {
+				return costBefore[item];
+			}
+			item = -item - 2;
+			return costBefore[item] + (units - unitsBefore[item]) * items[item].priceCents;
+		}
+
+		private long chunkCount(long unitCount) {
+			long chunks = 0;
+			for (ItemUnits item : items) {
+				long size = Math.min(item.size(), unitCount);
+				chunks += 64 - Long.numberOfLeadingZeros(size);
+			}
+			return Math.max(chunks, 1);
+		}
+
+		/**
+		 * Bounded knapsack over (units bought, cents spent). Each item is split into chunks of 1, 2, 4, ... units,
+		 * and every reachable state remembers the chunk that first reached it so the choice can be rebuilt
+		 * @param unitCount
+		 * @param budgetCents
+		 * @return units bought per item
+		 */
+		private long[] dynamicProgram(int unitCount, int budgetCents) {
+			int width = budgetCents + 1;
+			int[] reachedBy = new int[(unitCount + 1) * width];
+			Arrays.fill(reachedBy, -1);
+			reachedBy[0] = Integer.MAX_VALUE;
+
+			List<int[]> chunks = new ArrayList<int[]>();
+			for (int i = 0; i < items.length; i++) {
+				int remaining = Math.min(items[i].size(), unitCount);
+				for (int size = 1; remaining > 0; size *= 2) {
+					int chunk = Math.min(size, remaining);
+					remaining -= chunk;
+					long chunkCost = chunk * items[i].priceCents;
+					if (chunkCost <= budgetCents) {
+						chunks.add(new int[] {i, chunk, (int) chunkCost});
+					}
+				}
+			}
+
+			for (int c = 0; c < chunks.size(); c++) {
+				SolveProgress.update(PlannerMetrics.Phase.SELECTION, c, chunks.size());
+				int chunk = chunks.get(c)[1];
+				int chunkCost = chunks.get(c)[2];
+				for (int units = unitCount; units >= chunk; units--) {
+					int row = units * width;
+					int fromRow = (units - chunk) * width;
+					for (int cents = budgetCents; cents >= chunkCost; cents--) {
+						if (reachedBy[row + cents] == -1 && reachedBy[fromRow + cents - chunkCost] != -1) {
+							reachedBy[row + cents] = c;
+						}
+					}
+				}
+			}
+
+			int cents = budgetCents;
+			int row = unitCount * width;
+			while (reachedBy[row + cents] == -1) {
+				cents--;
+			}
+			long[] chosen = new long[items.length];
+			int units = unitCount;
+			while (units > 0) {
+				int[] chunk = chunks.get(reachedBy[units * width + cents]);
+				chosen[chunk[0]] += chunk[1];
+				units -= chunk[1];
+				cents -= chunk[2];
+			}
+			return chosen;
+		}
+
+		/**
+		 * Depth-first search over how many units of each item to buy, most expensive item first.
+		 * A branch is cut when even buying its most expensive remaining units (capped by the budget left),
+		 * which is the optimum of the linear relaxation, cannot beat the best plan found so far
+		 * @param unitCount
+		 * @param budgetCents
+		 * @param incumbent starting plan, the cheapest units
+		 * @param incumbentCost
+		 * @param deadline
+		 * @return units bought per item
+		 */
+		private long[] branchAndBound(long unitCount, long budgetCents, long[] incumbent, long incumbentCost, long deadline) {
+			int itemCount = items.length;
+			long[] best = incumbent.clone();
+			long bestCost = incumbentCost;
+			long[] chosen = new long[itemCount];
+			long[] unitsLeft = new long[itemCount + 1];
+			long[] centsLeft = new long[itemCount + 1];
+			long[] lowest = new long[itemCount];
+			unitsLeft[0] = unitCount;
+			centsLeft[0] = budgetCents;
+
+			int depth = 0;
+			chosen[0] = highestChoice(0, unitCount, budgetCents) + 1;
+			lowest[0] = lowestChoice(0, unitCount);
+			long nodes = 0;
+			optimal = true;
+
+			while (depth >= 0) {
+				if (++nodes % DEADLINE_CHECK_INTERVAL == 0) {
+					SolveProgress.checkCancelled(Thread.currentThread());
+					if (System.nanoTime() > deadline) {
+						optimal = false;
+						break;
+					}
+				}
+				chosen[depth]--;
+				if (chosen[depth] < lowest[depth]) {
+					depth--;
+					continue;
+				}
+				long units = unitsLeft[depth] - chosen[depth];
+				long cents = centsLeft[depth] - chosen[depth] * items[depth].priceCents;
+				long spent = budgetCents - cents;
+				int next = depth + 1;
+				if (units == 0) {
+					if (spent > bestCost) {
+						bestCost = spent;
+						best = Arrays.copyOf(chosen, itemCount);
+						Arrays.fill(best, next, itemCount, 0);
+						if (bestCost == budgetCents) {
+							break;
+						}
+					}
+					continue;
+				}
+				if (next == itemCount || !feasible(next, units, cents)) {
+					continue;
+				}
+				if (spent + Math.min(cents, mostExpensive(next, units)) <= bestCost) {
+					continue;
+				}
+				depth = next;
+				unitsLeft[depth] = units;
+				centsLeft[depth] = cents;
+				chosen[depth] = highestChoice(depth, units, cents) + 1;
+				lowest[depth] = lowestChoice(depth, units);
+			}
+			return best;
+		}
+
+		private long highestChoice(int item, long units, long cents) {
+			long highest = Math.min(items[item].size(), units);
+			if (items[item].priceCents > 0) {
+				highest = Math.min(highest, cents / items[item].priceCents);
+			}
+			return highest;
+		}
+
+		/**
+		 * Fewest units of an item that still leave enough units in the later items to reach the count
+		 */
+		private long lowestChoice(int item, long units) {
+			long later = unitsBefore[items.length] - unitsBefore[item + 1];
+			return Math.max(0, units - later);
+		}
+
+		/**
+		 * Whether the cheapest units from the given item on can still reach the count within the cents left
+		 */
+		private boolean feasible(int item, long units, long cents) {
+			long total = unitsBefore[items.length];
+			if (total - unitsBefore[item] < units) {
+				return false;
+			}
+			return costBefore[items.length] - costOfUnits(total - units) <= cents;
+		}
+
+		/**
+		 * Cost of the most expensive units from the given item on
+		 */
+		private long mostExpensive(int item, long units) {
+			return costOfUnits(unitsBefore[item] + units) - costBefore[item];
+		}
+
+		/**
+		 * Each item's first guests get the units bought, and everyone else keeps the preference
+		 */
+		private Map<String, List<String>> createRemainingItems() {
+			boolean[] bought = new boolean[index.preferenceCount()];
+			for (ItemUnits item : items) {
+				for (int i = 0; i < item.bought; i++) {
+					bought[index.preferenceSlot(index.holderStart[item.id] + i)] = true;
+				}
+			}
+			Map<String, List<String>> remainingItems = new HashMap<String, List<String>>();
+			for (int guest = 0; guest < catalog.getGuestCount(); guest++) {
+				if (guest % SolveProgress.CHECK_INTERVAL == 0) {
+					SolveProgress.update(PlannerMetrics.Phase.REMAINING_ITEMS, guest, catalog.getGuestCount());
+				}
+				List<String> remaining = new ArrayList<String>();
+				for (int slot = catalog.getPreferenceStart(guest); slot < catalog.getPreferenceStart(guest + 1); slot++) {
+					if (!bought[slot]) {
+						remaining.add(catalog.getItemName(catalog.getPreferenceItem(slot)));
+					}
+				}
+				if (!remaining.isEmpty()) {
+					remainingItems.put(catalog.getGuestName(guest), remaining);
+				}
+			}
+			return remainingItems;
+		}
+
+		private static void reverse(Object[] values) {
+			for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+				Object swap = values[i];
+				values[i] = values[j];
+				values[j] = swap;
+			}
+		}
+
+		private static void reverse(long[] values) {
+			for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+				long swap = values[i];
+				values[i] = values[j];
+				values[j] = swap;
+			}
+		}
+
+	}
+
+	/**
+	 * One priced item and how many guests list it
+	 */
+	private static class ItemUnits {
+
+		private static final Comparator<ItemUnits> CHEAPEST_FIRST = new Comparator<ItemUnits>() {
+			@Override
+			public int compare(ItemUnits first, ItemUnits second) {
+				int byPrice = Long.compare(first.priceCents, second.priceCents);
+				return byPrice != 0 ? byPrice : Integer.compare(first.id, second.id);
+			}
+		};
+
+		private final int id;
+		private final String name;
+		private final long priceCents;
+		private final int size;
+		private int bought;
+
+		private ItemUnits(PreferenceIndex index, int itemId) {
+			id = itemId;
+			name = index.catalog.getItemName(itemId);
+			priceCents = index.catalog.getPriceCents(itemId);
+			size = index.holderCount(itemId);
+		}
+
+		private int size() {
+			return size;
+		}
+	}
+
+}
@@ -0,0 +1,252 @@
+package party_Planning;
+
+import java.util.Arrays;
+
+/**
+ * Guests grouped into weighted classes of identical preferences. Two guests share a class when they list the same items
+ * the same number of times, in any order, and each class is weighted by the number of guests in it.
+ *
+ * The greedy buys an item for everyone who listed it before moving on, so all it needs to know about the guests is
+ * how many units of each item they want together and where it first comes across each item. Those come from the classes
+ * as weight times count, and a class's guests are satisfied together when its last item is bought, so with many guests
+ * sharing a few profiles a solve takes time in proportion to the profiles rather than the guests.
+ *
+ * Grouping is given up once more than half of the guests turn out to have a profile of their own, since there is
+ * then little to share and the per-guest PreferenceIndex is used instead
+ * @author Samarth Desai
+ *
+ */
+final class GuestClasses {
+
+	private static final int NO_CLASS = 0;
+	private static final int INITIAL_TABLE_SIZE = 1024;
+
+	final PartyCatalog catalog;
+	/** Whether the guests shared enough profiles to be grouped; the other fields are only set if they did */
+	final boolean grouped;
+	/** Class of each guest */
+	final int[] guestClass;
+	/** Number of guests in each class */
+	final int[] classWeight;
+	/** Number of preferences each guest of a class lists, priced or not */
+	final int[] classLength;
+	/** First entry of each class in classItems and classCounts, with one extra entry for the total */
+	final int[] classStart;
+	/** Distinct items of each class in increasing id order, with the number of times each guest of the class lists them */
+	final int[] classItems;
+	final int[] classCounts;
+	/** Units of each item wanted by all the guests together, counting only priced items */
+	final int[] itemUnits;
+	/** Where the original greedy first came across each item, counting preferences in the catalog's visiting order */
+	final int[] firstVisit;
+	/** Priced items that at least one guest wants */
+	final int[] pricedItems;
+	/** First entry of each item in itemClasses and itemClassCounts, with one extra entry for the total */
+	final int[] itemClassStart;
+	/** Classes that list each item, with the number of times each of their guests lists it */
+	final int[] itemClasses;
+	final int[] itemClassCounts;
+
+	/**
+	 * Groups the catalog's guests, or records that they share too few profiles to be worth grouping
+	 * @param partyCatalog
+	 */
+	GuestClasses(PartyCatalog partyCatalog) {
+
+		catalog = partyCatalog;
+		int guestCount = catalog.getGuestCount();
+		int itemCount = catalog.getItemCount();
+		int maxClasses = guestCount / 2;
+
+		int[] classes = new int[guestCount];
+		int[] weights = new int[16];
+		int[] lengths = new int[16];
+		int[] hashes = new int[16];
+		int[] starts = new int[17];
+		int[] items = new int[64];
+		int[] counts = new int[64];
+		int classCount = 0;
+		int[] table = new int[INITIAL_TABLE_SIZE];
+		int[] first = new int[itemCount];
+		Arrays.fill(first, Integer.MAX_VALUE);
+
+		int[] sorted = new int[16];
+		int[] distinct = new int[16];
+		int[] repeats = new int[16];
+		boolean shared = true;
+		int[] guestOrder = catalog.guestVisitOrder();
+		int visited = 0;
+		for (int visit = 0; visit < guestCount; visit++) {
+			if (visit % SolveProgress.CHECK_INTERVAL == 0) {
+				SolveProgress.update(PlannerMetrics.Phase.INDEX_BUILD, visit, guestCount);
+			}
+			int guest = guestOrder[visit];
+			int start = catalog.getPreferenceStart(guest);
+			int length = catalog.getPreferenceStart(guest + 1) - start;
+			if (length > sorted.length) {
+				sorted = new int[Math.max(length, sorted.length * 2)];
+				distinct = new int[sorted.length];
+				repeats = new int[sorted.length];
+			}
+			for (int i = 0; i < length; i++) {
+				int item = catalog.getPreferenceItem(start + i);
+				sorted[i] = item;
+				if (first[item] == Integer.MAX_VALUE) {
+					first[item] = visited + i;
+				}
+			}
+			visited += length;
+			Arrays.sort(sorted, 0, length);
+			int entries = 0;
+			int hash = length;
+			for (int i = 0; i < length; i++) {
+				if (entries > 0 && distinct[entries - 1] == sorted[i]) {
+					repeats[entries - 1]++;
+				}
+				else {
+					distinct[entries] = sorted[i];
+					repeats[entries] = 1;
+					entries++;
+				}
+			}
+			for (int i = 0; i < entries; i++) {
+				hash = 31 * (31 * hash + distinct[i]) + repeats[i];
+			}
+
+			int mask = table.length - 1;
+			int slot = mix(hash) & mask;
+			int found = NO_CLASS;
+			for (; table[slot] != NO_CLASS; slot = (slot + 1) & mask) {
+				int candidate = table[slot] - 1;
+				if (hashes[candidate] == hash && starts[candidate + 1] - starts[candidate] == entries
+						&& lengths[candidate] == length && sameEntries(items, counts, starts[candidate], distinct, repeats, entries)) {
+					found = table[slot];
+					break;
+				}
+			}
+			if (found == NO_CLASS) {
+				if (classCount == maxClasses) {
+					shared = false;
+					break;
+				}
+				if (classCount == weights.length) {
+					weights = Arrays.copyOf(weights, classCount * 2);
+					lengths = Arrays.copyOf(lengths, classCount * 2);
+					hashes = Arrays.copyOf(hashes, classCount * 2);
+					starts = Arrays.copyOf(starts, classCount * 2 + 1);
+				}
+				int entryStart = starts[classCount];
+				if (entryStart + entries > items.length) {
+					items = Arrays.copyOf(items, Math.max(entryStart + entries, items.length * 2));
+					counts = Arrays.copyOf(counts, items.length);
+				}
+				System.arraycopy(distinct, 0, items, entryStart, entries);
+				System.arraycopy(repeats, 0, counts, entryStart, entries);
+				starts[classCount + 1] = entryStart + entries;
+				lengths[classCount] = length;
+				hashes[classCount] = hash;
+				classCount++;
+				found = classCount;
+				table[slot] = found;
+				if (classCount * 2 > table.length) {
+					table = rehash(table, hashes, classCount);
+				}
+			}
+			classes[guest] = found - 1;
+			weights[found - 1]++;
+		}
+
+		grouped = shared;
+		if (!grouped) {
+			guestClass = null;
+			classWeight = null;
+			classLength = null;
+			classStart = null;
+			classItems = null;
+			classCounts = null;
+			itemUnits = null;
+			firstVisit = null;
+			pricedItems = null;
+			itemClassStart = null;
+			itemClasses = null;
+			itemClassCounts = null;
+			return;
+		}
+		guestClass = classes;
+		classWeight = Arrays.copyOf(weights, classCount);
+		classLength = Arrays.copyOf(lengths, classCount);
+		classStart = Arrays.copyOf(starts, classCount + 1);
+		classItems = Arrays.copyOf(items, classStart[classCount]);
+		classCounts = Arrays.copyOf(counts, classStart[classCount]);
+		firstVisit = first;
+
+		//Units of each priced item, and which classes list it
+		itemUnits = new int[itemCount];
+		itemClassStart = new int[itemCount + 1];
+		for (int entry = 0; entry < classItems.length; entry++) {
+			if (catalog.getPriceCents(classItems[entry]) != PartyCatalog.NO_PRICE) {
+				itemClassStart[classItems[entry] + 1]++;
+			}
+		}
+		int pricedCount = 0;
+		for (int item = 0; item < itemCount; item++) {
+			if (itemClassStart[item + 1] > 0) {
+				pricedCount++;
+			}
+			itemClassStart[item + 1] += itemClassStart[item];
+		}
+		itemClasses = new int[itemClassStart[itemCount]];
+		itemClassCounts = new int[itemClasses.length];
+		int[] next = Arrays.copyOf(itemClassStart, itemCount);
+		for (int group = 0; group < classCount; group++) {
+			for (int entry = classStart[group]; entry < classStart[group + 1]; entry++) {
+				int item = classItems[entry];
+				if (catalog.getPriceCents(item) != PartyCatalog.NO_PRICE) {
+					itemClasses[next[item]] = group;
+					itemClassCounts[next[item]] = classCounts[entry];
+					next[item]++;
+					itemUnits[item] += classWeight[group] * classCounts[entry];
+				}
+			}
+		}
+		pricedItems = new int[pricedCount];
+		for (int item = 0, i = 0; item < itemCount; item++) {
+			if (itemClassStart[item + 1] > itemClassStart[item]) {
+				pricedItems[i++] = item;
+			}
+		}
+
+	}
+
+	private static boolean sameEntries(int[] items, int[] counts, int start, int[] distinct, int[] repeats, int entries) {
+		for (int i = 0; i < entries; i++) {
+			if (items[start + i] != distinct[i] || counts[start + i] != repeats[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int[] rehash(int[] table, int[] hashes, int classCount) {
+		int[] larger = new int[table.length * 2];
+		int mask = larger.length - 1;
+		for (int group = 0; group < classCount; group++) {
+			int slot = mix(hashes[group]) & mask;
+			while (larger[slot] != NO_CLASS) {
+				slot = (slot + 1) & mask;
+			}
+			larger[slot] = group + 1;
+		}
+		return larger;
+	}
+
+	private static int mix(int hash) {
+		int spread = hash * 0x9e3779b9;
+		return spread ^ (spread >>> 16);
+	}
+
+	int classCount() {
+		return classWeight.length;
+	}
+
+}
@@ -0,0 +1,827 @@
+package party_Planning;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Selects the food and drinks to buy using an inverted index of who prefers each item and a min-heap ordered by price,
+ * so the cheapest preferred item is found without rescanning every guest and every price on each round.
+ * Buys the same items as the original greedy in LegacySelectionEngine, working in whole cents on the catalog's item ids.
+ * Guests are visited in the order the original greedy visited them, see PartyCatalog.guestVisitOrder, so items with the same price
+ * and the units of an item the budget only partly covers go the same way as in the original.
+ * The index is built once per catalog and shared by every later solve of it, on the common ForkJoinPool for guest lists
+ * at or above the parallel threshold, buying the same items.
+ * When most guests share their preferences with others, solve and sweep instead work on the GuestClasses of the catalog,
+ * buying each item for a whole class of guests at once, and build the per-guest remaining items only when they are asked for
+ * @author Samarth Desai
+ *
+ */
+public class IndexedSelectionEngine implements SelectionStrategy {
+
+	private static final int NOT_BOUGHT = Integer.MAX_VALUE;
+
+	private final int parallelThreshold;
+	private final boolean groupGuests;
+
+	/**
+	 * Creates an engine that indexes guest lists in parallel from PreferenceIndex.DEFAULT_PARALLEL_THRESHOLD guests
+	 */
+	public IndexedSelectionEngine() {
+		this(PreferenceIndex.DEFAULT_PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * Creates an engine that indexes guest lists of at least the given number of guests in parallel
+	 * @param parallelGuests
+	 */
+	public IndexedSelectionEngine(int parallelGuests) {
+		this(parallelGuests, true);
+	}
+
+	/**
+	 * Creates an engine that can be kept to the per-guest path, to check the grouped one against it
+	 * @param parallelGuests
+	 * @param groupGuestClasses false to solve guest by guest even when the catalog's guests are grouped
+	 */
+	IndexedSelectionEngine(int parallelGuests, boolean groupGuestClasses) {
+
+		parallelThreshold = parallelGuests;
+		groupGuests = groupGuestClasses;
+
+	}
+
+	/**
+	 * Buys the cheapest preferred items first until the budget allows for no more,
+	 * following the same rules as the original greedy
+	 * @param catalog
+	 * @param budget
+	 * @return
+	 */
+	@Override
+	public Plan solve(PartyCatalog catalog, double budget) {
+
+		if (groupGuests) {
+			GuestClasses classes = catalog.guestClasses();
+			if (classes.grouped) {
+				return solveClasses(classes, budget);
+			}
+		}
+		Solve solve = new Solve(catalog, parallelThreshold);
+		PurchaseSequence sequence = new PurchaseSequence(false);
+		PlannerMetrics.Timer timer = PlannerMetrics.start(PlannerMetrics.Phase.SELECTION);
+		long spentCents = solve.buyCheapestFirst(PartyCatalog.budgetToCents(budget), sequence);
+		PlannerMetrics.stop(timer);
+		solve.recordSolve(sequence);
+
+		return new Plan(budget, solve.itemsBoughtMap, solve.remaining(sequence.units, sequence.firstRoundComplete),
+				spentCents / 100.0);
+
+	}
+
+	/**
+	 * Solves over classes of guests: each round buys the cheapest item's units for every class that listed it at once,
+	 * and only the round in which the budget runs out is split
+	 */
+	private static Plan solveClasses(GuestClasses classes, double budget) {
+
+		ClassSolve solve = new ClassSolve(classes);
+		long budgetCents = PartyCatalog.budgetToCents(budget);
+		PlannerMetrics.Timer timer = PlannerMetrics.start(PlannerMetrics.Phase.SELECTION);
+		solve.buyRounds(budgetCents);
+		ClassSolve.Stop stop = solve.stopAt(budgetCents);
+		Map<String, Integer> itemsBought = new HashMap<String, Integer>();
+		for (int round = 0; round < stop.fullRounds; round++) {
+			int item = solve.roundItems[round];
+			itemsBought.put(classes.catalog.getItemName(item), classes.itemUnits[item]);
+		}
+		if (stop.partialUnits > 0) {
+			itemsBought.put(classes.catalog.getItemName(stop.partialItem), stop.partialUnits);
+		}
+		PlannerMetrics.stop(timer);
+		solve.recordSolve(stop);
+
+		return new Plan(budget, itemsBought, solve.remainingSupplier(stop), stop.spentCents / 100.0);
+
+	}
+
+	/**
+	 * Plans every budget from the rounds of a single solve over classes of guests, finding where each budget stops
+	 * with a binary search over the running totals of the rounds
+	 */
+	private static Plan[] sweepClasses(GuestClasses classes, double[] budgets) {
+
+		ClassSolve solve = new ClassSolve(classes);
+		PlannerMetrics.Timer timer = PlannerMetrics.start(PlannerMetrics.Phase.SELECTION);
+		solve.buyRounds(Long.MAX_VALUE);
+		PlannerMetrics.stop(timer);
+		solve.recordSolve(solve.stopAt(Long.MAX_VALUE));
+
+		final long[] budgetCents = new long[budgets.length];
+		Integer[] byBudget = new Integer[budgets.length];
+		for (int i = 0; i < budgets.length; i++) {
+			budgetCents[i] = PartyCatalog.budgetToCents(budgets[i]);
+			byBudget[i] = i;
+		}
+		Arrays.sort(byBudget, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer first, Integer second) {
+				return Long.compare(budgetCents[first], budgetCents[second]);
+			}
+		});
+
+		//Item counts grow with the budget, and are added in the order the items are bought like the per-guest sweep's
+		Plan[] plans = new Plan[budgets.length];
+		Map<String, Integer> itemCounts = new HashMap<String, Integer>();
+		int countedRounds = 0;
+		for (Integer budgetIndex : byBudget) {
+			ClassSolve.Stop stop = solve.stopAt(budgetCents[budgetIndex]);
+			for (; countedRounds < stop.fullRounds; countedRounds++) {
+				int item = solve.roundItems[countedRounds];
+				itemCounts.put(classes.catalog.getItemName(item), classes.itemUnits[item]);
+			}
+			if (stop.partialUnits > 0) {
+				itemCounts.put(classes.catalog.getItemName(stop.partialItem), stop.partialUnits);
+			}
+			plans[budgetIndex] = new Plan(budgets[budgetIndex], new HashMap<String, Integer>(itemCounts),
+					solve.remainingSupplier(stop), stop.spentCents / 100.0);
+		}
+		return plans;
+
+	}
+
+	/**
+	 * Lists every unit the greedy would buy with an unlimited budget, cheapest first, working out each unit
+	 * only when it is asked for
+	 * @param catalog
+	 * @return
+	 */
+	public static Iterator<Purchase> purchases(PartyCatalog catalog) {
+		return new PurchaseIterator(catalog, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Lists the units the greedy buys with the budget, cheapest first, working out each unit only when it is asked for.
+	 * The list ends where the greedy stops, so reading all of it gives the items and amount spent of solve
+	 * @param catalog
+	 * @param budget
+	 * @return
+	 */
+	public static Iterator<Purchase> purchases(PartyCatalog catalog, double budget) {
+		return new PurchaseIterator(catalog, PartyCatalog.budgetToCents(budget));
+	}
+
+	/**
+	 * Streams the units the greedy buys with the budget, cheapest first. Only the units a stream reads are worked out,
+	 * so limit, findFirst and similar operations stop the purchase as soon as they have their answer
+	 * @param catalog
+	 * @param budget
+	 * @return
+	 */
+	public static Stream<Purchase> purchaseStream(PartyCatalog catalog, double budget) {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(purchases(catalog, budget),
+				Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+	}
+
+	/**
+	 * Plans every budget from a single pass: the cheapest-first purchase order does not depend on the budget,
+	 * so the order is computed once with a running total, and each budget finds how far into it it can afford with a binary search
+	 * @param catalog
+	 * @param budgets
+	 * @return plans in the same order as the budgets
+	 */
+	public static Plan[] sweep(PartyCatalog catalog, double[] budgets) {
+		return sweep(catalog, budgets, true);
+	}
+
+	/**
+	 * Plans every budget from a single pass, guest by guest unless groupGuests is set and the catalog's guests are grouped
+	 * @param catalog
+	 * @param budgets
+	 * @param groupGuests
+	 * @return plans in the same order as the budgets
+	 */
+	static Plan[] sweep(PartyCatalog catalog, double[] budgets, boolean groupGuests) {
+
+		if (groupGuests) {
+			GuestClasses classes = catalog.guestClasses();
+			if (classes.grouped) {
+				return sweepClasses(classes, budgets);
+			}
+		}
+		Solve solve = new Solve(catalog, PreferenceIndex.DEFAULT_PARALLEL_THRESHOLD);
+		PurchaseSequence sequence = new PurchaseSequence(true);
+		PlannerMetrics.Timer timer = PlannerMetrics.start(PlannerMetrics.Phase.SELECTION);
+		solve.buyCheapestFirst(Long.MAX_VALUE, sequence);
+		PlannerMetrics.stop(timer);
+		solve.recordSolve(sequence);
+
+		final long[] budgetCents = new long[budgets.length];
+		Integer[] byBudget = new Integer[budgets.length];
+		for (int i = 0; i < budgets.length; i++) {
+			budgetCents[i] = PartyCatalog.budgetToCents(budgets[i]);
+			byBudget[i] = i;
+		}
+		Arrays.sort(byBudget, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer first, Integer second) {
+				return Long.compare(budgetCents[first], budgetCents[second]);
+			}
+		});
+
+		//Item counts grow with the budget, so they are built up while walking the budgets in increasing order
+		Plan[] plans = new Plan[budgets.length];
+		Map<String, Integer> itemCounts = new HashMap<String, Integer>();
+		int counted = 0;
+		for (Integer budgetIndex : byBudget) {
+			long budget = budgetCents[budgetIndex];
+			int units = sequence.affordableUnits(budget);
+			for (; counted < units; counted++) {
+				String itemName = catalog.getItemName(sequence.items[sequence.roundOf(counted)]);
+				Integer count = itemCounts.get(itemName);
+				itemCounts.put(itemName, count == null ? 1 : count + 1);
+			}
+			boolean firstRoundComplete = budget > 0 && units >= sequence.firstRoundUnits();
+			plans[budgetIndex] = new Plan(budgets[budgetIndex], new HashMap<String, Integer>(itemCounts),
+					solve.remainingSupplier(units, firstRoundComplete), sequence.runningTotals[units] / 100.0);
+		}
+		return plans;
+
+	}
+
+	/**
+	 * State of one solve over a catalog: the inverted index, the heap of items still to buy,
+	 * and which preferences have been bought so far
+	 */
+	private static class Solve {
+
+		private final PartyCatalog catalog;
+		private final PreferenceIndex index;
+		private final int[] purchaseRanks;
+		private final int[] unmet;
+		private int guestsLeft;
+		private int rounds;
+		private int satisfiedGuests;
+		private final ItemHeap cheapestItems;
+		private final Map<String, Integer> itemsBoughtMap = new HashMap<String, Integer>();
+
+		/**
+		 * Takes the catalog's inverted index from each priced item to the guests and preference positions that list it,
+		 * building it if no solve has yet, and loads the items into the min-heap
+		 */
+		private Solve(PartyCatalog partyCatalog, int parallelThreshold) {
+
+			catalog = partyCatalog;
+			index = catalog.preferenceIndex(parallelThreshold);
+			int guestCount = catalog.getGuestCount();
+			purchaseRanks = new int[index.preferenceCount()];
+			Arrays.fill(purchaseRanks, NOT_BOUGHT);
+			unmet = new int[guestCount];
+			for (int guest = 0; guest < guestCount; guest++) {
+				unmet[guest] = index.guestStart[guest + 1] - index.guestStart[guest];
+			}
+			guestsLeft = guestCount;
+			cheapestItems = new ItemHeap(index);
+
+		}
+
+		/**
+		 * Takes items from the heap, cheapest first, buying one unit per guest who listed the item until the budget runs out
+		 * @param budgetCents
+		 * @param sequence records the order in which units were bought
+		 * @return the amount spent in cents
+		 */
+		private long buyCheapestFirst(long budgetCents, PurchaseSequence sequence) {
+
+			long spent = 0;
+
+			while (spent < budgetCents && guestsLeft > 0) {
+				int cheapestItem = cheapestItems.poll();
+				if (cheapestItem != ItemHeap.EMPTY) {
+					rounds++;
+					long price = catalog.getPriceCents(cheapestItem);
+					sequence.startRound(cheapestItem);
+					for (int holder = index.holderStart[cheapestItem], i = 0; holder < index.holderStart[cheapestItem + 1]; holder++, i++) {
+						if (spent + price <= budgetCents) {
+							int pleasedGuest = index.holderGuest[holder];
+							purchaseRanks[index.preferenceSlot(holder)] = sequence.units;
+							unmet[pleasedGuest]--;
+							if (unmet[pleasedGuest] == 0) {
+								guestsLeft--;
+								satisfiedGuests++;
+							}
+							spent += price;
+							sequence.bought(spent);
+							itemsBoughtMap.put(catalog.getItemName(cheapestItem), i+1);
+							if (sequence.units % SolveProgress.CHECK_INTERVAL == 0) {
+								SolveProgress.update(PlannerMetrics.Phase.SELECTION, sequence.units, index.holderGuest.length);
+							}
+						}
+						else {
+							return spent;
+						}
+					}
+				}
+				//The original algorithm only drops guests who never listed anything once a full round completes
+				if (!sequence.firstRoundComplete) {
+					sequence.firstRoundComplete = true;
+					for (int guest = 0; guest < unmet.length; guest++) {
+						if (index.guestStart[guest + 1] == index.guestStart[guest]) {
+							guestsLeft--;
+						}
+					}
+				}
+				//Preferences missing from the price lists can never be bought, so there is nothing left to do
+				if (cheapestItem == ItemHeap.EMPTY) {
+					break;
+				}
+			}
+
+			return spent;
+
+		}
+
+		private void recordSolve(PurchaseSequence sequence) {
+			PlannerMetrics.recordSolve(rounds, cheapestItems.comparisons, sequence.units, satisfiedGuests);
+		}
+
+		/**
+		 * Collects each guest's preferences that were not among the first units of the purchase order, visiting guests
+		 * in the same order as the other paths so the map is filled the same way
+		 * @param units
+		 * @param firstRoundComplete
+		 * @return
+		 */
+		private Map<String, List<String>> remaining(int units, boolean firstRoundComplete) {
+			PlannerMetrics.Timer timer = PlannerMetrics.start(PlannerMetrics.Phase.REMAINING_ITEMS);
+			Map<String, List<String>> remaining = new HashMap<String, List<String>>();
+			int[] guestOrder = catalog.guestVisitOrder();
+			for (int visit = 0; visit < guestOrder.length; visit++) {
+				if (visit % SolveProgress.CHECK_INTERVAL == 0) {
+					SolveProgress.update(PlannerMetrics.Phase.REMAINING_ITEMS, visit, guestOrder.length);
+				}
+				int guest = guestOrder[visit];
+				int start = index.guestStart[guest];
+				int end = index.guestStart[guest + 1];
+				List<String> guestRemaining = new ArrayList<String>();
+				for (int slot = start; slot < end; slot++) {
+					if (purchaseRanks[slot] >= units) {
+						guestRemaining.add(catalog.getItemName(catalog.getPreferenceItem(slot)));
+					}
+				}
+				if (!guestRemaining.isEmpty() || (!firstRoundComplete && start == end)) {
+					remaining.put(catalog.getGuestName(guest), guestRemaining);
+				}
+			}
+			PlannerMetrics.stop(timer);
+			return remaining;
+		}
+
+		private Supplier<Map<String, List<String>>> remainingSupplier(final int units, final boolean firstRoundComplete) {
+			return new Supplier<Map<String, List<String>>>() {
+				@Override
+				public Map<String, List<String>> get() {
+					return remaining(units, firstRoundComplete);
+				}
+			};
+		}
+	}
+
+	/**
+	 * Rounds of the greedy over classes of guests: the items in the order they are bought, and the total spent
+	 * before each round when every guest who listed the item gets all their units of it
+	 */
+	private static class ClassSolve {
+
+		private final GuestClasses classes;
+		private final PartyCatalog catalog;
+		private final ItemHeap cheapestItems;
+		/** Round in which each item is bought, or NOT_BOUGHT */
+		private final int[] itemRounds;
+		private int[] roundItems = new int[16];
+		/** Total spent in cents before each round, with one extra entry after the last */
+		private long[] roundTotals = new long[17];
+		private int rounds;
+		private boolean exhausted;
+
+		private ClassSolve(GuestClasses guestClasses) {
+
+			classes = guestClasses;
+			catalog = classes.catalog;
+			cheapestItems = new ItemHeap(catalog, classes.pricedItems, classes.firstVisit);
+			itemRounds = new int[catalog.getItemCount()];
+			Arrays.fill(itemRounds, NOT_BOUGHT);
+
+		}
+
+		/**
+		 * Takes items from the heap, cheapest first, until the next round could not be started with the budget.
+		 * The last round taken may cost more than the budget, and is split by stopAt
+		 * @param budgetCents
+		 */
+		private void buyRounds(long budgetCents) {
+			while (!exhausted && roundTotals[rounds] < budgetCents) {
+				int item = cheapestItems.poll();
+				if (item == ItemHeap.EMPTY) {
+					exhausted = true;
+					break;
+				}
+				if (rounds == roundItems.length) {
+					roundItems = Arrays.copyOf(roundItems, rounds * 2);
+					roundTotals = Arrays.copyOf(roundTotals, rounds * 2 + 1);
+				}
+				itemRounds[item] = rounds;
+				roundItems[rounds] = item;
+				roundTotals[rounds + 1] = roundTotals[rounds] + catalog.getPriceCents(item) * classes.itemUnits[item];
+				rounds++;
+			}
+		}
+
+		/**
+		 * Finds where the greedy stops with the budget: at the first round that either cannot be started because the budget
+		 * is used up, or cannot be finished, in which case as many of its units are bought as the budget allows
+		 * @param budgetCents
+		 * @return
+		 */
+		private Stop stopAt(long budgetCents) {
+			int low = 0;
+			int high = rounds;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (roundTotals[middle] >= budgetCents || roundTotals[middle + 1] > budgetCents) {
+					high = middle;
+				}
+				else {
+					low = middle + 1;
+				}
+			}
+			if (low == rounds || roundTotals[low] >= budgetCents) {
+				//The per-guest greedy only drops guests who never listed anything once a full round completes
+				boolean firstRoundComplete = budgetCents > 0 && (low > 0 || rounds == 0);
+				return new Stop(low, ItemHeap.EMPTY, 0, roundTotals[low], firstRoundComplete);
+			}
+			int item = roundItems[low];
+			int units = (int) ((budgetCents - roundTotals[low]) / catalog.getPriceCents(item));
+			return new Stop(low, item, units, roundTotals[low] + units * catalog.getPriceCents(item), low > 0);
+		}
+
+		/**
+		 * Records the rounds started, heap comparisons, units and satisfied guests when metrics are on. Satisfied guests
+		 * are counted per class, except in a split round, where the units go to the first guests visited who listed the item
+		 */
+		private void recordSolve(Stop stop) {
+			if (!PlannerMetrics.isEnabled()) {
+				return;
+			}
+			int[] unmet = classes.classLength.clone();
+			long units = 0;
+			long satisfiedGuests = 0;
+			for (int round = 0; round < stop.fullRounds; round++) {
+				int item = roundItems[round];
+				units += classes.itemUnits[item];
+				for (int entry = classes.itemClassStart[item]; entry < classes.itemClassStart[item + 1]; entry++) {
+					int group = classes.itemClasses[entry];
+					unmet[group] -= classes.itemClassCounts[entry];
+					if (unmet[group] == 0) {
+						satisfiedGuests += classes.classWeight[group];
+					}
+				}
+			}
+			int startedRounds = stop.fullRounds;
+			if (stop.partialItem != ItemHeap.EMPTY) {
+				startedRounds++;
+				units += stop.partialUnits;
+				int[] partialCounts = new int[unmet.length];
+				for (int entry = classes.itemClassStart[stop.partialItem]; entry < classes.itemClassStart[stop.partialItem + 1]; entry++) {
+					partialCounts[classes.itemClasses[entry]] = classes.itemClassCounts[entry];
+				}
+				int unitsLeft = stop.partialUnits;
+				int[] guestOrder = catalog.guestVisitOrder();
+				for (int visit = 0; visit < guestOrder.length && unitsLeft > 0; visit++) {
+					int group = classes.guestClass[guestOrder[visit]];
+					int wanted = partialCounts[group];
+					if (wanted > 0 && wanted <= unitsLeft && unmet[group] == wanted) {
+						satisfiedGuests++;
+					}
+					unitsLeft -= Math.min(wanted, unitsLeft);
+				}
+			}
+			PlannerMetrics.recordSolve(startedRounds, cheapestItems.comparisons, units, satisfiedGuests);
+		}
+
+		/**
+		 * Collects each guest's preferences that the greedy did not buy before stopping. An item of a split round is bought
+		 * for the first guests visited who listed it
+		 * @param stop
+		 * @return
+		 */
+		private Map<String, List<String>> remaining(Stop stop) {
+			PlannerMetrics.Timer timer = PlannerMetrics.start(PlannerMetrics.Phase.REMAINING_ITEMS);
+			Map<String, List<String>> remaining = new HashMap<String, List<String>>();
+			int partialLeft = stop.partialUnits;
+			int[] guestOrder = catalog.guestVisitOrder();
+			for (int visit = 0; visit < guestOrder.length; visit++) {
+				if (visit % SolveProgress.CHECK_INTERVAL == 0) {
+					SolveProgress.update(PlannerMetrics.Phase.REMAINING_ITEMS, visit, guestOrder.length);
+				}
+				int guest = guestOrder[visit];
+				int start = catalog.getPreferenceStart(guest);
+				int end = catalog.getPreferenceStart(guest + 1);
+				List<String> guestRemaining = new ArrayList<String>();
+				for (int slot = start; slot < end; slot++) {
+					int item = catalog.getPreferenceItem(slot);
+					if (itemRounds[item] < stop.fullRounds) {
+						continue;
+					}
+					if (item == stop.partialItem && partialLeft > 0) {
+						partialLeft--;
+						continue;
+					}
+					guestRemaining.add(catalog.getItemName(item));
+				}
+				if (!guestRemaining.isEmpty() || (!stop.firstRoundComplete && start == end)) {
+					remaining.put(catalog.getGuestName(guest), guestRemaining);
+				}
+			}
+			PlannerMetrics.stop(timer);
+			return remaining;
+		}
+
+		private Supplier<Map<String, List<String>>> remainingSupplier(final Stop stop) {
+			return new Supplier<Map<String, List<String>>>() {
+				@Override
+				public Map<String, List<String>> get() {
+					return remaining(stop);
+				}
+			};
+		}
+
+		/**
+		 * Where the greedy stops with one budget: the rounds bought in full, the item and units of a split round if any,
+		 * and the amount spent
+		 */
+		private static final class Stop {
+
+			private final int fullRounds;
+			private final int partialItem;
+			private final int partialUnits;
+			private final long spentCents;
+			private final boolean firstRoundComplete;
+
+			private Stop(int full, int item, int units, long spent, boolean firstComplete) {
+				fullRounds = full;
+				partialItem = item;
+				partialUnits = units;
+				spentCents = spent;
+				firstRoundComplete = firstComplete;
+			}
+		}
+	}
+
+	/**
+	 * Steps through the greedy one unit at a time. The index and heap are built up front, then each unit costs one step
+	 * through the current item's holders, and each new item one poll of the heap
+	 */
+	private static class PurchaseIterator implements Iterator<Purchase> {
+
+		private final PartyCatalog catalog;
+		private final PreferenceIndex index;
+		private final ItemHeap cheapestItems;
+		private final int[] unmet;
+		private final long budgetCents;
+		private int item = ItemHeap.EMPTY;
+		private long price;
+		private int holder;
+		private int holderEnd;
+		private long spent;
+		private int units;
+		private boolean finished;
+
+		private PurchaseIterator(PartyCatalog partyCatalog, long budget) {
+
+			catalog = partyCatalog;
+			index = catalog.preferenceIndex(PreferenceIndex.DEFAULT_PARALLEL_THRESHOLD);
+			cheapestItems = new ItemHeap(index);
+			unmet = new int[catalog.getGuestCount()];
+			for (int guest = 0; guest < unmet.length; guest++) {
+				unmet[guest] = index.guestStart[guest + 1] - index.guestStart[guest];
+			}
+			budgetCents = budget;
+
+		}
+
+		/**
+		 * Moves on to the next item when the current one has been bought for every guest who listed it,
+		 * and ends where buyCheapestFirst would: once a unit is unaffordable, or when no money is left to start an item
+		 */
+		@Override
+		public boolean hasNext() {
+			if (finished) {
+				return false;
+			}
+			if (holder == holderEnd) {
+				item = spent < budgetCents ? cheapestItems.poll() : ItemHeap.EMPTY;
+				if (item == ItemHeap.EMPTY) {
+					finished = true;
+					return false;
+				}
+				price = catalog.getPriceCents(item);
+				holder = index.holderStart[item];
+				holderEnd = index.holderStart[item + 1];
+			}
+			if (spent + price > budgetCents) {
+				finished = true;
+				return false;
+			}
+			return true;
+		}
+
+		@Override
+		public Purchase next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			int guest = index.holderGuest[holder++];
+			unmet[guest]--;
+			spent += price;
+			return new Purchase(units++, item, catalog.getItemName(item), guest, catalog.getGuestName(guest), price, spent,
+					unmet[guest] == 0);
+		}
+	}
+
+	/**
+	 * Binary min-heap of item ids ordered by price in cents, then by where the original greedy first came across the item
+	 */
+	static class ItemHeap {
+
+		static final int EMPTY = -1;
+
+		private final PartyCatalog catalog;
+		private final int[] firstVisit;
+		private final int[] heap;
+		private int size;
+		private long comparisons;
+
+		ItemHeap(PreferenceIndex index) {
+			this(index.catalog, index.pricedItems, index.firstVisit);
+		}
+
+		/**
+		 * Loads the items into a heap
+		 * @param partyCatalog
+		 * @param items priced items to buy
+		 * @param firstVisits where the original greedy first came across each item, by item id
+		 */
+		ItemHeap(PartyCatalog partyCatalog, int[] items, int[] firstVisits) {
+			catalog = partyCatalog;
+			firstVisit = firstVisits;
+			heap = items.clone();
+			size = heap.length;
+			for (int i = size / 2 - 1; i >= 0; i--) {
+				siftDown(i);
+			}
+		}
+
+		int poll() {
+			if (size == 0) {
+				return EMPTY;
+			}
+			int cheapest = heap[0];
+			heap[0] = heap[--size];
+			siftDown(0);
+			return cheapest;
+		}
+
+		private void siftDown(int position) {
+			int item = heap[position];
+			int half = size >>> 1;
+			while (position < half) {
+				int child = 2 * position + 1;
+				if (child + 1 < size && cheaper(heap[child + 1], heap[child])) {
+					child++;
+				}
+				if (!cheaper(heap[child], item)) {
+					break;
+				}
+				heap[position] = heap[child];
+				position = child;
+			}
+			heap[position] = item;
+		}
+
+		private boolean cheaper(int first, int second) {
+			comparisons++;
+			long firstPrice = catalog.getPriceCents(first);
+			long secondPrice = catalog.getPriceCents(second);
+			if (firstPrice != secondPrice) {
+				return firstPrice < secondPrice;
+			}
+			return firstVisit[first] < firstVisit[second];
+		}
+	}
+
+	/**
+	 * Cheapest-first order in which units were bought, with the running total in cents after each unit
+	 * and the unit at which each item's round started
+	 */
+	private static class PurchaseSequence {
+
+		private final boolean recording;
+		private int[] items = new int[16];
+		private int rounds;
+		private int[] roundStarts = new int[16];
+		private long[] runningTotals = new long[16];
+		private int units;
+		private boolean firstRoundComplete;
+
+		private PurchaseSequence(boolean recordOrder) {
+			recording = recordOrder;
+		}
+
+		private void startRound(int item) {
+			if (recording) {
+				if (rounds == roundStarts.length) {
+					roundStarts = Arrays.copyOf(roundStarts, rounds * 2);
+					items = Arrays.copyOf(items, rounds * 2);
+				}
+				roundStarts[rounds] = units;
+				items[rounds] = item;
+				rounds++;
+			}
+		}
+
+		private void bought(long spent) {
+			units++;
+			if (recording) {
+				if (units == runningTotals.length) {
+					runningTotals = Arrays.copyOf(runningTotals, runningTotals.length * 2);
+				}
+				runningTotals[units] = spent;
+			}
+		}
+
+		private int roundOf(int unit) {
+			int round = Arrays.binarySearch(roundStarts, 0, rounds, unit);
+			if (round < 0) {
+				return -round - 2;
+			}
+			//Items with no buyers cannot occur, so round starts are distinct
+			return round;
+		}
+
+		private int firstRoundUnits() {
+			return rounds > 1 ? roundStarts[1] : units;
+		}
+
+		/**
+		 * Counts how many units the original greedy would buy with the given budget: a unit is affordable while
+		 * the running total stays within the budget, and a new item is only started while money is left over
+		 * @param budget in cents
+		 * @return
+		 */
+		private int affordableUnits(long budget) {
+			if (budget <= 0) {
+				return 0;
+			}
+			//Largest unit count whose running total is still within the budget
+			int low = 0;
+			int high = units;
+			while (low < high) {
+				int middle = (low + high + 1) >>> 1;
+				if (runningTotals[middle] <= budget) {
+					low = middle;
+				}
+				else {
+					high = middle - 1;
+				}
+			}
+			//The loop ends before a new item if the budget is used up exactly, even when that item is free
+			int firstRound = 0;
+			int lastRound = rounds;
+			while (firstRound < lastRound) {
+				int middle = (firstRound + lastRound) >>> 1;
+				if (runningTotals[roundStarts[middle]] >= budget) {
+					lastRound = middle;
+				}
+				else {
+					firstRound = middle + 1;
+				}
+			}
+			if (firstRound < rounds && roundStarts[firstRound] < low) {
+				return roundStarts[firstRound];
+			}
+			return low;
+		}
+	}
+
+}
@@ -0,0 +1,213 @@
+package party_Planning;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The original greedy: on every round it scans every guest, every preference and every price to find the cheapest
+ * preferred item, then buys one unit of it per guest until the budget runs out.
+ * Kept so that the other engines can be compared against it
+ * @author Samarth Desai
+ *
+ */
+public class LegacySelectionEngine implements SelectionStrategy {
+
+	@Override
+	public Plan solve(PartyCatalog catalog, double budget) {
+		Solve solve = new Solve(catalog);
+		PlannerMetrics.Timer timer = PlannerMetrics.start(PlannerMetrics.Phase.SELECTION);
+		Map<String, Integer> itemsBought = solve.selectConsumables(budget);
+		PlannerMetrics.stop(timer);
+		PlannerMetrics.recordSolve(solve.rounds, solve.comparisons, solve.units, solve.satisfiedGuests);
+		return new Plan(budget, itemsBought, solve.remainingPreferences(), solve.amountSpent);
+	}
+
+	/**
+	 * State of one solve. The original algorithm removed preferences, guests and prices from copies of the maps while it ran;
+	 * this keeps the catalog's arrays shared and marks what has been removed in bitsets instead, visiting the guests
+	 * in the order the original map did so the same units are bought
+	 */
+	private static class Solve {
+
+		private static final float HASH_MAP_LOAD_FACTOR = 0.75f;
+
+		private final PartyCatalog catalog;
+		private final int[] guestOrder;
+		private final double[] itemPrices;
+		private final BitSet removedPreferences;
+		private final BitSet removedGuests;
+		private final BitSet removedItems;
+		private int guestsLeft;
+		private Map<String, Integer> itemsBoughtMap;
+		private double budget;
+		private double amountSpent;
+		private long rounds;
+		private long comparisons;
+		private long units;
+		private long satisfiedGuests;
+
+		/**
+		 * Sets up an empty view over the catalog, in which nothing has been removed yet
+		 * @param partyCatalog
+		 */
+		private Solve(PartyCatalog partyCatalog) {
+
+			catalog = partyCatalog;
+			int guestCount = catalog.getGuestCount();
+			//The original algorithm iterated a copy of the map it filled from people.txt, which the catalog's visiting order repeats
+			guestOrder = catalog.guestVisitOrder();
+
+			itemPrices = new double[catalog.getItemCount()];
+			int item = 0;
+			for (double price : catalog.getConsumables().values()) {
+				itemPrices[item++] = price;
+			}
+			removedPreferences = new BitSet(catalog.getPreferenceCount());
+			removedGuests = new BitSet(guestCount);
+			removedItems = new BitSet(catalog.getItemCount());
+			//Items no price list mentions were never in the map of prices
+			removedItems.set(item, catalog.getItemCount());
+			guestsLeft = guestCount;
+			itemsBoughtMap = new HashMap<String, Integer>();
+
+		}
+
+		private Map<String, Integer> selectConsumables(double currentBudget) {
+
+			budget = currentBudget;
+
+			int cheapestItem;
+			double cheapestValue;
+			IntList guestsPleased = new IntList();
+			IntList preferencesPleased = new IntList();
+
+			amountSpent = 0;
+
+			while (amountSpent < budget && guestsLeft > 0) {
+				cheapestItem = -1;
+				cheapestValue = Double.MAX_VALUE;
+				rounds++;
+				SolveProgress.update(PlannerMetrics.Phase.SELECTION, units, catalog.getPreferenceCount());
+				for (int guest : guestOrder) {
+					if (removedGuests.get(guest)) {
+						continue;
+					}
+					int end = catalog.getPreferenceStart(guest + 1);
+					for (int slot = nextPreference(catalog.getPreferenceStart(guest)); slot < end; slot = nextPreference(slot + 1)) {
+						int item = catalog.getPreferenceItem(slot);
+						if (!removedItems.get(item)) {
+							comparisons++;
+							if (itemPrices[item] < cheapestValue) {
+								guestsPleased.clear();
+								preferencesPleased.clear();
+								cheapestItem = item;
+								cheapestValue = itemPrices[item];
+								guestsPleased.add(guest);
+								preferencesPleased.add(slot);
+							}
+							else if (itemPrices[item] == cheapestValue && item == cheapestItem) {
+								guestsPleased.add(guest);
+								preferencesPleased.add(slot);
+							}
+						}
+					}
+				}
+
+				for (int i = 0; i<guestsPleased.size; i++) {
+					if (amountSpent + cheapestValue <= budget) {
+						int guest = guestsPleased.values[i];
+						removedPreferences.set(preferencesPleased.values[i]);
+						if (isEmpty(guest)) {
+							removeGuest(guest);
+							satisfiedGuests++;
+						}
+						amountSpent += cheapestValue;
+						units++;
+						itemsBoughtMap.put(catalog.getItemName(cheapestItem), i+1);
+					}
+					else {
+						return itemsBoughtMap;
+					}
+				}
+
+				if (cheapestItem >= 0) {
+					removedItems.set(cheapestItem);
+				}
+				guestsPleased.clear();
+				preferencesPleased.clear();
+
+				for (int guest = 0; guest < guestOrder.length; guest++) {
+					if (!removedGuests.get(guest) && isEmpty(guest)) {
+						removeGuest(guest);
+					}
+				}
+				//Preferences missing from the price lists can never be bought, so there is nothing left to do
+				if (cheapestItem < 0) {
+					break;
+				}
+			}
+
+			return itemsBoughtMap;
+
+		}
+
+		private int nextPreference(int slot) {
+			return removedPreferences.nextClearBit(slot);
+		}
+
+		private boolean isEmpty(int guest) {
+			return nextPreference(catalog.getPreferenceStart(guest)) >= catalog.getPreferenceStart(guest + 1);
+		}
+
+		private void removeGuest(int guest) {
+			removedGuests.set(guest);
+			guestsLeft--;
+		}
+
+		/**
+		 * Copies out the preferences of the guests still left, in a map sized like a copy of the original map
+		 * so that it iterates in the same order
+		 * @return
+		 */
+		private Map<String, List<String>> remainingPreferences() {
+			Map<String, List<String>> remaining = new HashMap<String, List<String>>((int) (guestsLeft / HASH_MAP_LOAD_FACTOR + 1.0f));
+			for (int guest : guestOrder) {
+				if (!removedGuests.get(guest)) {
+					List<String> guestRemaining = new ArrayList<String>();
+					int end = catalog.getPreferenceStart(guest + 1);
+					for (int slot = nextPreference(catalog.getPreferenceStart(guest)); slot < end; slot = nextPreference(slot + 1)) {
+						guestRemaining.add(catalog.getItemName(catalog.getPreferenceItem(slot)));
+					}
+					remaining.put(catalog.getGuestName(guest), guestRemaining);
+				}
+			}
+			return remaining;
+		}
+
+	}
+
+	/**
+	 * Growable list of ints, so the guests and preferences found for the cheapest item are not boxed
+	 */
+	private static class IntList {
+
+		private int[] values = new int[16];
+		private int size;
+
+		private void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		private void clear() {
+			size = 0;
+		}
+	}
+
+}
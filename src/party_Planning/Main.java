@@ -14,10 +14,18 @@ public class Main extends Application {
 		launch(args);
 	}
 
+	/**
+	 * Shows the welcome screen while the planner loads the catalog and warms up in the background
+	 * @param stage
+	 */
 	public void start(Stage stage)
 	{
 
-		WelcomeScreen welcomeScreen = new WelcomeScreen (stage);
+		PlannerMetrics.markStartup();
+		PlannerMetrics.register();
+		PartyPlanner partyPlanner = new PartyPlanner (stage);
+		partyPlanner.preload();
+		WelcomeScreen welcomeScreen = new WelcomeScreen (stage, partyPlanner);
 		welcomeScreen.createWelcome();
 		stage.show();
 	}
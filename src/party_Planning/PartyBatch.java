@@ -0,0 +1,265 @@
+package party_Planning;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * Plans a series of parties that share one food and drink catalog but each have their own guest list.
+ * The price files are parsed once and every guest list is parsed against the same read-only price index,
+ * then the parties are split in halves on a ForkJoinPool until each task plans a single party.
+ * Parties share nothing they write to, so throughput grows with the number of worker threads
+ * @author Samarth Desai
+ *
+ */
+public final class PartyBatch {
+
+	private final PartyCatalog prices;
+	private final SpendingAlgorithm spendingAlgorithm;
+	private final ForkJoinPool pool;
+	private final PlanStore planStore;
+
+	/**
+	 * Creates a batch that plans on the common ForkJoinPool
+	 * @param priceCatalog catalog whose food and drink prices every party is planned with
+	 * @param algorithm
+	 */
+	public PartyBatch(PartyCatalog priceCatalog, SpendingAlgorithm algorithm) {
+		this(priceCatalog, algorithm, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a batch that plans on the given pool
+	 * @param priceCatalog catalog whose food and drink prices every party is planned with
+	 * @param algorithm
+	 * @param forkJoinPool
+	 */
+	public PartyBatch(PartyCatalog priceCatalog, SpendingAlgorithm algorithm, ForkJoinPool forkJoinPool) {
+		this(priceCatalog, algorithm, forkJoinPool, null);
+	}
+
+	/**
+	 * Creates a batch that plans on the given pool and reuses the plans in the store for guest lists planned before
+	 * @param priceCatalog catalog whose food and drink prices every party is planned with
+	 * @param algorithm
+	 * @param forkJoinPool
+	 * @param store plan cache, or null to solve every plan
+	 */
+	public PartyBatch(PartyCatalog priceCatalog, SpendingAlgorithm algorithm, ForkJoinPool forkJoinPool, PlanStore store) {
+
+		prices = priceCatalog;
+		spendingAlgorithm = algorithm;
+		pool = forkJoinPool;
+		planStore = store;
+
+	}
+
+	/**
+	 * Plans every budget for every guest list
+	 * @param guestLists people files, one per party
+	 * @param budgets
+	 * @return the plans of each party, in the order of the guest lists, and the totals across all parties
+	 */
+	public Result plan(List<File> guestLists, double[] budgets) {
+		PartyResult[] parties = new PartyResult[guestLists.size()];
+		pool.invoke(new PlanParties(guestLists.toArray(new File[parties.length]), budgets.clone(), parties, 0, parties.length));
+		return new Result(parties, budgets.clone());
+	}
+
+	/**
+	 * Plans a range of guest lists, splitting it in half until a single party is left
+	 */
+	private class PlanParties extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final File[] guestLists;
+		private final double[] budgets;
+		private final PartyResult[] results;
+		private final int start;
+		private final int end;
+
+		private PlanParties(File[] peopleFiles, double[] partyBudgets, PartyResult[] partyResults, int first, int last) {
+			guestLists = peopleFiles;
+			budgets = partyBudgets;
+			results = partyResults;
+			start = first;
+			end = last;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start <= 1) {
+				if (start < end) {
+					File guestList = guestLists[start];
+					final PartyCatalog catalog = prices.withGuests(guestList);
+					Plan[] plans;
+					if (planStore == null) {
+						plans = spendingAlgorithm.planAll(catalog, budgets);
+					}
+					else {
+						//The party's catalog is still parsed, for the unmet preferences of its result
+						plans = planStore.planAll(spendingAlgorithm, prices.getFile(PartyCatalog.DRINKS), prices.getFile(PartyCatalog.FOOD),
+								guestList, budgets, new Supplier<PartyCatalog>() {
+									@Override
+									public PartyCatalog get() {
+										return catalog;
+									}
+								});
+					}
+					results[start] = new PartyResult(guestList, catalog, plans);
+				}
+				return;
+			}
+			int middle = (start + end) >>> 1;
+			invokeAll(new PlanParties(guestLists, budgets, results, start, middle),
+					new PlanParties(guestLists, budgets, results, middle, end));
+		}
+	}
+
+	/**
+	 * Plans of one party, one for each budget in the order they were given
+	 */
+	public static final class PartyResult {
+
+		private final File guestList;
+		private final PartyCatalog catalog;
+		private final Plan[] plans;
+		private final int[] unmetPreferences;
+
+		private PartyResult(File peopleFile, PartyCatalog partyCatalog, Plan[] partyPlans) {
+
+			guestList = peopleFile;
+			catalog = partyCatalog;
+			plans = partyPlans;
+
+			//Every unit bought fulfills exactly one listed preference, so the unmet count needs no remaining items map
+			int preferenceCount = catalog.getPreferenceCount();
+			unmetPreferences = new int[plans.length];
+			for (int i = 0; i < plans.length; i++) {
+				int unitsBought = 0;
+				for (int units : plans[i].getItemsBought().values()) {
+					unitsBought += units;
+				}
+				unmetPreferences[i] = preferenceCount - unitsBought;
+			}
+
+		}
+
+		/**
+		 * Sends the people file this party was planned from
+		 * @return
+		 */
+		public File getGuestList() {
+			return guestList;
+		}
+
+		/**
+		 * Sends the catalog of this party's guests with the shared prices
+		 * @return
+		 */
+		public PartyCatalog getCatalog() {
+			return catalog;
+		}
+
+		/**
+		 * Sends the plan for the budget at the given position
+		 * @param budget
+		 * @return
+		 */
+		public Plan getPlan(int budget) {
+			return plans[budget];
+		}
+
+		/**
+		 * Sends the plans in the order of the budgets
+		 * @return
+		 */
+		public Plan[] getPlans() {
+			return plans.clone();
+		}
+
+		/**
+		 * Sends the number of listed preferences the plan for the budget at the given position could not fulfill
+		 * @param budget
+		 * @return
+		 */
+		public int getUnmetPreferences(int budget) {
+			return unmetPreferences[budget];
+		}
+	}
+
+	/**
+	 * Plans of every party in the batch with the totals for each budget across all parties
+	 */
+	public static final class Result {
+
+		private final List<PartyResult> parties;
+		private final double[] budgets;
+		private final long[] totalSpentCents;
+		private final long[] totalUnmetPreferences;
+
+		private Result(PartyResult[] partyResults, double[] partyBudgets) {
+
+			parties = Collections.unmodifiableList(Arrays.asList(partyResults));
+			budgets = partyBudgets;
+			totalSpentCents = new long[budgets.length];
+			totalUnmetPreferences = new long[budgets.length];
+			for (PartyResult party : partyResults) {
+				for (int i = 0; i < budgets.length; i++) {
+					totalSpentCents[i] += Math.round(party.getPlan(i).getAmountSpent() * 100);
+					totalUnmetPreferences[i] += party.getUnmetPreferences(i);
+				}
+			}
+
+		}
+
+		/**
+		 * Sends the result of each party, in the order of the guest lists
+		 * @return
+		 */
+		public List<PartyResult> getParties() {
+			return parties;
+		}
+
+		/**
+		 * Sends the number of budgets each party was planned for
+		 * @return
+		 */
+		public int getBudgetCount() {
+			return budgets.length;
+		}
+
+		/**
+		 * Sends the budget at the given position
+		 * @param budget
+		 * @return
+		 */
+		public double getBudget(int budget) {
+			return budgets[budget];
+		}
+
+		/**
+		 * Sends the amount every party together spends with the budget at the given position
+		 * @param budget
+		 * @return
+		 */
+		public double getTotalSpent(int budget) {
+			return totalSpentCents[budget] / 100.0;
+		}
+
+		/**
+		 * Sends the number of preferences left unmet across every party with the budget at the given position
+		 * @param budget
+		 * @return
+		 */
+		public long getTotalUnmetPreferences(int budget) {
+			return totalUnmetPreferences[budget];
+		}
+	}
+
+}
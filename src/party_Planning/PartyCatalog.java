@@ -0,0 +1,914 @@
+package party_Planning;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Immutable snapshot of the item prices and guest preferences parsed from the three text files.
+ * A catalog is parsed once and can be shared by any number of SpendingAlgorithm runs; getInstance only
+ * parses the files again when one of them has changed on disk.
+ *
+ * The catalog keeps a compact form for the selection engines: every item name is given an int id,
+ * prices are whole cents in a long array, and the preferences of all guests are item ids in one flat int array,
+ * each guest's starting at their offset in a second array. people.txt is streamed straight into this form by PeopleFileParser,
+ * and getPreferences only wraps it in a read-only map view, so each item name exists once however many guests list it. Loading a directory also keeps a binary snapshot of this form in it,
+ * see CatalogSnapshot, which later starts read instead of the text while the files are unchanged
+ * @author Samarth Desai
+ *
+ */
+public final class PartyCatalog {
+
+	public static final String FILE_PATH = "src/Party_Files/";
+	public static final String DRINKS_FILE_NAME = "drinks.txt";
+	public static final String FOOD_FILE_NAME = "food.txt";
+	public static final String PEOPLE_FILE_NAME = "people.txt";
+	public static final String SNAPSHOT_FILE_NAME = "catalog.snapshot";
+	static final int DRINKS = 0;
+	static final int FOOD = 1;
+	static final int PEOPLE = 2;
+
+	public static final long NO_PRICE = -1;
+	private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+	private static final AtomicLong VERSIONS = new AtomicLong();
+	private static CatalogWatcher sharedWatcher;
+
+	private final File[] files;
+	private final Map<String, Double> consumablesMap;
+	private volatile Map<String, List<String>> preferencesMap;
+	private volatile GuestClasses guestClasses;
+	private volatile PreferenceIndex preferenceIndex;
+	private volatile int[] guestVisitOrder;
+	private final long[] modifiedTimes;
+	private final long[] fileSizes;
+	private final long[] contentHashes;
+	private final long version;
+
+	private final Map<String, Integer> itemIds;
+	private final String[] itemNames;
+	private final long[] priceCents;
+	private final String[] guestNames;
+	private final int[] preferenceStart;
+	private final int[] preferenceItems;
+	private final long peopleLineCount;
+
+	/**
+	 * Creates a catalog from its parsed parts. Priced items have the first ids, in the order of the consumables map,
+	 * then preferences with no price in the order they are first listed. Guest g's preferences are
+	 * preferences[starts[g]] up to preferences[starts[g + 1]]
+	 */
+	PartyCatalog(File[] catalogFiles, Map<String, Double> consumables, String[] names, long[] prices,
+			String[] guests, int[] starts, int[] preferences, long peopleLines, long[] modified, long[] sizes, long[] hashes) {
+
+		files = catalogFiles;
+		consumablesMap = consumables;
+
+		itemNames = names;
+		itemIds = new HashMap<String, Integer>(names.length * 2);
+		for (int i = 0; i < itemNames.length; i++) {
+			itemIds.put(itemNames[i], i);
+		}
+		priceCents = prices;
+		guestNames = guests;
+		preferenceStart = starts;
+		preferenceItems = preferences;
+		peopleLineCount = peopleLines;
+
+		modifiedTimes = modified;
+		fileSizes = sizes;
+		contentHashes = hashes;
+		version = VERSIONS.incrementAndGet();
+
+	}
+
+	/**
+	 * Copies a catalog whose files were touched without their contents changing, keeping its parsed data and version
+	 */
+	private PartyCatalog(PartyCatalog unchanged, long[] modified, long[] sizes) {
+
+		files = unchanged.files;
+		consumablesMap = unchanged.consumablesMap;
+		preferencesMap = unchanged.preferencesMap;
+		guestClasses = unchanged.guestClasses;
+		preferenceIndex = unchanged.preferenceIndex;
+		guestVisitOrder = unchanged.guestVisitOrder;
+		itemIds = unchanged.itemIds;
+		itemNames = unchanged.itemNames;
+		priceCents = unchanged.priceCents;
+		guestNames = unchanged.guestNames;
+		preferenceStart = unchanged.preferenceStart;
+		preferenceItems = unchanged.preferenceItems;
+		peopleLineCount = unchanged.peopleLineCount;
+		modifiedTimes = modified;
+		fileSizes = sizes;
+		contentHashes = unchanged.contentHashes;
+		version = unchanged.version;
+
+	}
+
+	/**
+	 * Creates a catalog for a new guest list that shares the price data of a catalog with the same price files
+	 */
+	private PartyCatalog(PartyCatalog prices, File[] catalogFiles, List<String> names, PeopleFileParser people,
+			long[] modified, long[] sizes, long[] hashes) {
+
+		files = catalogFiles;
+		consumablesMap = prices.consumablesMap;
+
+		int pricedCount = consumablesMap.size();
+		itemNames = names.toArray(new String[names.size()]);
+		itemIds = new HashMap<String, Integer>();
+		priceCents = Arrays.copyOf(prices.priceCents, itemNames.length);
+		for (int i = 0; i < itemNames.length; i++) {
+			itemIds.put(itemNames[i], i);
+			if (i >= pricedCount) {
+				priceCents[i] = NO_PRICE;
+			}
+		}
+		guestNames = people.getGuestNames();
+		preferenceStart = people.getPreferenceStarts();
+		preferenceItems = people.getPreferenceItems();
+		peopleLineCount = people.getLineCount();
+
+		modifiedTimes = modified;
+		fileSizes = sizes;
+		contentHashes = hashes;
+		version = VERSIONS.incrementAndGet();
+
+	}
+
+	/**
+	 * Sends the shared catalog for the default Party_Files directory, parsing the files on first use.
+	 * After that a CatalogWatcher parses whichever file changes on disk, so this does not read the files again
+	 * @return
+	 */
+	public static synchronized PartyCatalog getInstance() {
+		if (sharedWatcher == null) {
+			sharedWatcher = new CatalogWatcher(load(new File(FILE_PATH)));
+		}
+		return sharedWatcher.getCatalog();
+	}
+
+	/**
+	 * Loads the three text files in the given directory into a new catalog. If the directory holds a binary snapshot
+	 * taken from the same files, unchanged since, the snapshot is read instead of parsing the text; otherwise the text is parsed
+	 * and a new snapshot is written for the next start
+	 * @param catalogDirectory
+	 * @return
+	 */
+	public static PartyCatalog load(File catalogDirectory) {
+		File[] catalogFiles = {new File(catalogDirectory, DRINKS_FILE_NAME), new File(catalogDirectory, FOOD_FILE_NAME),
+				new File(catalogDirectory, PEOPLE_FILE_NAME)};
+		File snapshotFile = new File(catalogDirectory, SNAPSHOT_FILE_NAME);
+		PartyCatalog catalog = CatalogSnapshot.read(snapshotFile, catalogFiles);
+		if (catalog == null) {
+			catalog = load(catalogFiles[DRINKS], catalogFiles[FOOD], catalogFiles[PEOPLE]);
+			CatalogSnapshot.write(snapshotFile, catalog);
+		}
+		return catalog;
+	}
+
+	/**
+	 * Reads and parses the given drinks, food and people files, which can be named anything and live anywhere
+	 * @param drinksFile
+	 * @param foodFile
+	 * @param peopleFile
+	 * @return
+	 */
+	public static PartyCatalog load(File drinksFile, File foodFile, File peopleFile) {
+		File[] catalogFiles = {drinksFile, foodFile, peopleFile};
+		long[] modified = new long[catalogFiles.length];
+		long[] sizes = new long[catalogFiles.length];
+		long[] hashes = new long[catalogFiles.length];
+		for (int i = 0; i < catalogFiles.length; i++) {
+			modified[i] = catalogFiles[i].lastModified();
+			sizes[i] = catalogFiles[i].length();
+			hashes[i] = hash(catalogFiles[i]);
+		}
+		return organizeData(catalogFiles, modified, sizes, hashes);
+	}
+
+	/**
+	 * Reads and parses only the drinks and food files, for planning guest lists against with withGuests.
+	 * The catalog has no guests and no people file
+	 * @param drinksFile
+	 * @param foodFile
+	 * @return
+	 */
+	public static PartyCatalog loadPrices(File drinksFile, File foodFile) {
+		PlannerMetrics.Timer timer = PlannerMetrics.start(PlannerMetrics.Phase.CATALOG_PARSE);
+		File[] catalogFiles = {drinksFile, foodFile, null};
+		long[] modified = {drinksFile.lastModified(), foodFile.lastModified(), 0};
+		long[] sizes = {drinksFile.length(), foodFile.length(), 0};
+		long[] hashes = {hash(drinksFile), hash(foodFile), 0};
+		Map<String, Double> consumables = new LinkedHashMap<String, Double>();
+		Map<String, Long> pricesInCents = new LinkedHashMap<String, Long>();
+		parsePrices(catalogFiles, consumables, pricesInCents);
+
+		String[] names = pricesInCents.keySet().toArray(new String[pricesInCents.size()]);
+		PartyCatalog catalog = new PartyCatalog(catalogFiles, Collections.unmodifiableMap(consumables), names,
+				toPriceCents(pricesInCents, names.length), new String[0], new int[1], new int[0], 0, modified, sizes, hashes);
+		PlannerMetrics.stop(timer);
+		return catalog;
+	}
+
+	/**
+	 * Parses a different guest list against this catalog's food and drink prices, without reading the price files again.
+	 * The priced items keep their ids, so many guest lists planned with the same prices share one price index
+	 * @param peopleFile
+	 * @return a new catalog with this catalog's prices and the guests in the given file
+	 */
+	public PartyCatalog withGuests(File peopleFile) {
+		File[] catalogFiles = {files[DRINKS], files[FOOD], peopleFile};
+		long[] modified = {modifiedTimes[DRINKS], modifiedTimes[FOOD], peopleFile.lastModified()};
+		long[] sizes = {fileSizes[DRINKS], fileSizes[FOOD], peopleFile.length()};
+		long[] hashes = {contentHashes[DRINKS], contentHashes[FOOD], hash(peopleFile)};
+
+		List<String> names = new ArrayList<String>(Arrays.asList(itemNames).subList(0, consumablesMap.size()));
+		PeopleFileParser people = parsePeople(peopleFile, names);
+		return new PartyCatalog(this, catalogFiles, names, people, modified, sizes, hashes);
+	}
+
+	/**
+	 * Checks the modification time and size of each file, and if any changed, compares content hashes
+	 * to decide which files need to be parsed again. Only the files whose contents changed are parsed:
+	 * new prices are matched to the guests already read by item name, a new guest list is read with the prices
+	 * already parsed, and lines added to the end of people.txt are read on their own after the guests already read.
+	 * A catalog of prices only has no people file, so only its prices are checked
+	 * @return this catalog if nothing changed, otherwise a newly parsed catalog
+	 */
+	public PartyCatalog refresh() {
+		boolean touched = false;
+		for (int i = 0; i < files.length; i++) {
+			File file = files[i];
+			if (file != null && (file.lastModified() != modifiedTimes[i] || file.length() != fileSizes[i])) {
+				touched = true;
+			}
+		}
+		if (!touched) {
+			return this;
+		}
+		return refreshContents();
+	}
+
+	/**
+	 * Like refresh, but hashes every file even if its modification time and size are unchanged, for callers that were told
+	 * a file was written: an edit that keeps a file's size within the file system's timestamp granularity is still seen
+	 * @return this catalog if nothing changed, otherwise a newly parsed catalog
+	 */
+	public PartyCatalog refreshContents() {
+		long[] modified = new long[files.length];
+		long[] sizes = new long[files.length];
+		long[] hashes = new long[files.length];
+		boolean[] changed = new boolean[files.length];
+		long[] oldPeopleHash = {0};
+		for (int i = 0; i < files.length; i++) {
+			File file = files[i];
+			if (file == null) {
+				continue;
+			}
+			modified[i] = file.lastModified();
+			sizes[i] = file.length();
+			hashes[i] = i == PEOPLE ? hash(file, fileSizes[PEOPLE], oldPeopleHash) : hash(file);
+			changed[i] = hashes[i] != contentHashes[i];
+		}
+		if (!changed[DRINKS] && !changed[FOOD] && !changed[PEOPLE]) {
+			if (Arrays.equals(modified, modifiedTimes) && Arrays.equals(sizes, fileSizes)) {
+				return this;
+			}
+			//Files were touched without their contents changing, so the parsed data and version are kept
+			return new PartyCatalog(this, modified, sizes);
+		}
+		if (!changed[DRINKS] && !changed[FOOD]) {
+			boolean appended = sizes[PEOPLE] > fileSizes[PEOPLE] && oldPeopleHash[0] == contentHashes[PEOPLE];
+			return reparsePeople(modified, sizes, hashes, appended);
+		}
+		if (!changed[PEOPLE]) {
+			return reparsePrices(modified, sizes, hashes);
+		}
+		return organizeData(files, modified, sizes, hashes);
+	}
+
+	/**
+	 * Parses people.txt again with this catalog's prices. If the file still starts with the contents this catalog was read from
+	 * and those ended between two guest records, the guests already read are kept and only the new lines are parsed
+	 * @param appended whether the file grew and its first bytes are unchanged
+	 */
+	private PartyCatalog reparsePeople(long[] modified, long[] sizes, long[] hashes, boolean appended) {
+		PlannerMetrics.Timer timer = PlannerMetrics.start(PlannerMetrics.Phase.CATALOG_PARSE);
+		File peopleFile = files[PEOPLE];
+		List<String> names = null;
+		PeopleFileParser people = null;
+		if (appended && PeopleFileParser.isBetweenRecords(peopleLineCount) && endsLine(peopleFile, fileSizes[PEOPLE])) {
+			names = new ArrayList<String>(Arrays.asList(itemNames));
+			people = new PeopleFileParser(names, this, peopleLineCount);
+			try {
+				people.parse(peopleFile, fileSizes[PEOPLE]);
+			}
+			catch (IOException e) {
+				people = null;
+			}
+		}
+		if (people == null) {
+			names = new ArrayList<String>(Arrays.asList(itemNames).subList(0, consumablesMap.size()));
+			people = parsePeople(peopleFile, names);
+		}
+		PartyCatalog catalog = new PartyCatalog(this, files, names, people, modified, sizes, hashes);
+		PlannerMetrics.stop(timer);
+		return catalog;
+	}
+
+	/**
+	 * Parses the price files again and gives the guests' preferences the new item ids by name, without reading people.txt.
+	 * Priced items take the first ids in the order of the new price files, like a full parse, followed by the unpriced
+	 * preferences in the order they are listed
+	 */
+	private PartyCatalog reparsePrices(long[] modified, long[] sizes, long[] hashes) {
+		PlannerMetrics.Timer timer = PlannerMetrics.start(PlannerMetrics.Phase.CATALOG_PARSE);
+		Map<String, Double> consumables = new LinkedHashMap<String, Double>();
+		Map<String, Long> pricesInCents = new LinkedHashMap<String, Long>();
+		parsePrices(files, consumables, pricesInCents);
+
+		List<String> names = new ArrayList<String>(pricesInCents.keySet());
+		Map<String, Integer> pricedIds = new HashMap<String, Integer>(names.size() * 2);
+		for (int item = 0; item < names.size(); item++) {
+			pricedIds.put(names.get(item), item);
+		}
+		int[] newIds = new int[itemNames.length];
+		Arrays.fill(newIds, -1);
+		int[] preferences = new int[preferenceItems.length];
+		for (int slot = 0; slot < preferences.length; slot++) {
+			int oldId = preferenceItems[slot];
+			if (newIds[oldId] < 0) {
+				Integer newId = pricedIds.get(itemNames[oldId]);
+				if (newId == null) {
+					newId = names.size();
+					names.add(itemNames[oldId]);
+				}
+				newIds[oldId] = newId;
+			}
+			preferences[slot] = newIds[oldId];
+		}
+
+		PartyCatalog catalog = new PartyCatalog(files, Collections.unmodifiableMap(consumables),
+				names.toArray(new String[names.size()]), toPriceCents(pricesInCents, names.size()), guestNames, preferenceStart,
+				preferences, peopleLineCount, modified, sizes, hashes);
+		PlannerMetrics.stop(timer);
+		return catalog;
+	}
+
+	/**
+	 * Parses the price files into maps, then streams the guest preferences from people.txt into item ids
+	 */
+	private static PartyCatalog organizeData(File[] catalogFiles, long[] modified, long[] sizes, long[] hashes) {
+
+		PlannerMetrics.Timer timer = PlannerMetrics.start(PlannerMetrics.Phase.CATALOG_PARSE);
+		Map<String, Double> consumables = new LinkedHashMap<String, Double>();
+		Map<String, Long> pricesInCents = new LinkedHashMap<String, Long>();
+		parsePrices(catalogFiles, consumables, pricesInCents);
+
+		List<String> itemNames = new ArrayList<String>(pricesInCents.keySet());
+		PeopleFileParser people = parsePeople(catalogFiles[PEOPLE], itemNames);
+
+		PartyCatalog catalog = new PartyCatalog(catalogFiles, Collections.unmodifiableMap(consumables),
+				itemNames.toArray(new String[itemNames.size()]), toPriceCents(pricesInCents, itemNames.size()),
+				people.getGuestNames(), people.getPreferenceStarts(), people.getPreferenceItems(), people.getLineCount(),
+				modified, sizes, hashes);
+		PlannerMetrics.stop(timer);
+		return catalog;
+
+	}
+
+	/**
+	 * Reads the drinks file and then the food file into the two price maps
+	 */
+	private static void parsePrices(File[] catalogFiles, Map<String, Double> consumables, Map<String, Long> pricesInCents) {
+		PriceFileParser prices = new PriceFileParser(consumables, pricesInCents);
+		prices.parse(readText(catalogFiles[DRINKS]));
+		prices.parse(readText(catalogFiles[FOOD]));
+	}
+
+	/**
+	 * Lays out the prices in cents by item id, with NO_PRICE for the items after the priced ones
+	 */
+	private static long[] toPriceCents(Map<String, Long> pricesInCents, int itemCount) {
+		long[] priceCents = new long[itemCount];
+		Arrays.fill(priceCents, NO_PRICE);
+		int item = 0;
+		for (long cents : pricesInCents.values()) {
+			priceCents[item++] = cents;
+		}
+		return priceCents;
+	}
+
+	/**
+	 * Streams the guest records into item ids, adding unpriced item names to the end of the list.
+	 * If the file cannot be read, a warning is printed and the catalog has no guests
+	 */
+	private static PeopleFileParser parsePeople(File peopleFile, List<String> itemNames) {
+		int pricedCount = itemNames.size();
+		PeopleFileParser people = new PeopleFileParser(itemNames);
+		try {
+			people.parse(peopleFile);
+		}
+		catch (IOException e) {
+			System.err.println("Incorrect File Value");
+			itemNames.subList(pricedCount, itemNames.size()).clear();
+			people = new PeopleFileParser(itemNames);
+		}
+		return people;
+	}
+
+	/**
+	 * Reads in a given file, printing a warning and returning no content if it cannot be read
+	 * @param file
+	 * @return
+	 */
+	private static String readText(File file) {
+		try {
+			return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		}
+		catch (IOException e) {
+			System.err.println("Incorrect File Value");
+			return "";
+		}
+	}
+
+	/**
+	 * Computes a checksum of the file's contents a block at a time, or the checksum of no content if it cannot be read
+	 * @param file
+	 * @return
+	 */
+	static long hash(File file) {
+		return hash(file, -1, null);
+	}
+
+	/**
+	 * Computes a checksum of the file's contents, and in the same pass the checksum of its first bytes
+	 * @param file
+	 * @param prefixLength number of first bytes to checksum
+	 * @param prefixHash receives the checksum of the first bytes, if the file has that many
+	 * @return the checksum of the whole file
+	 */
+	private static long hash(File file, long prefixLength, long[] prefixHash) {
+		CRC32 crc = new CRC32();
+		try {
+			FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+			try {
+				ByteBuffer buffer = ByteBuffer.allocate(HASH_BUFFER_SIZE);
+				long position = 0;
+				while (channel.read(buffer) >= 0) {
+					int length = buffer.position();
+					int prefixPart = (int) Math.max(0, Math.min(length, prefixLength - position));
+					if (prefixHash != null && prefixPart > 0 && position + prefixPart == prefixLength) {
+						crc.update(buffer.array(), 0, prefixPart);
+						prefixHash[0] = crc.getValue();
+						crc.update(buffer.array(), prefixPart, length - prefixPart);
+					}
+					else {
+						crc.update(buffer.array(), 0, length);
+					}
+					position += length;
+					buffer.clear();
+				}
+			}
+			finally {
+				channel.close();
+			}
+		}
+		catch (IOException e) {
+			crc.reset();
+		}
+		return crc.getValue();
+	}
+
+	/**
+	 * Whether the byte before the given position is a line feed, so a line starts at the position
+	 */
+	private static boolean endsLine(File file, long position) {
+		if (position <= 0) {
+			return false;
+		}
+		try {
+			FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+			try {
+				ByteBuffer lastByte = ByteBuffer.allocate(1);
+				return channel.read(lastByte, position - 1) == 1 && lastByte.get(0) == '\n';
+			}
+			finally {
+				channel.close();
+			}
+		}
+		catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Converts a price written in dollars, such as 8.50, to whole cents without going through a double
+	 * @param price
+	 * @return
+	 */
+	public static long toCents(String price) {
+		return new BigDecimal(price.trim()).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+	}
+
+	/**
+	 * Converts a budget in dollars to whole cents, rounding down so a plan never spends more than was entered
+	 * @param budget
+	 * @return
+	 */
+	public static long budgetToCents(double budget) {
+		if (!(budget > 0)) {
+			return 0;
+		}
+		if (budget >= Long.MAX_VALUE / 100) {
+			return Long.MAX_VALUE;
+		}
+		return BigDecimal.valueOf(budget).movePointRight(2).setScale(0, RoundingMode.FLOOR).longValue();
+	}
+
+	/**
+	 * Sends the read-only map of food and drink items to their unit prices
+	 * @return
+	 */
+	public Map<String, Double> getConsumables() {
+		return consumablesMap;
+	}
+
+	/**
+	 * Sends the read-only map of guests to the food and drinks they prefer, in the order of people.txt.
+	 * The map and its lists are views of the catalog's arrays, so nothing is copied per guest
+	 * @return
+	 */
+	public Map<String, List<String>> getPreferences() {
+		Map<String, List<String>> preferences = preferencesMap;
+		if (preferences == null) {
+			synchronized (this) {
+				preferences = preferencesMap;
+				if (preferences == null) {
+					preferences = new PreferencesView();
+					preferencesMap = preferences;
+				}
+			}
+		}
+		return preferences;
+	}
+
+	/**
+	 * Sends the inverted index of who prefers each item, building it on first use, in parallel if there are at least
+	 * the given number of guests. The catalog never changes, so every solve of it shares one index
+	 * @param parallelThreshold
+	 * @return
+	 */
+	PreferenceIndex preferenceIndex(int parallelThreshold) {
+		PreferenceIndex index = preferenceIndex;
+		if (index == null) {
+			synchronized (this) {
+				index = preferenceIndex;
+				if (index == null) {
+					index = new PreferenceIndex(this, parallelThreshold);
+					preferenceIndex = index;
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Sends the guests grouped into classes of identical preferences, grouping them on first use.
+	 * The catalog never changes, so every solve of it shares one grouping
+	 * @return
+	 */
+	GuestClasses guestClasses() {
+		GuestClasses classes = guestClasses;
+		if (classes == null) {
+			synchronized (this) {
+				classes = guestClasses;
+				if (classes == null) {
+					classes = new GuestClasses(this);
+					guestClasses = classes;
+				}
+			}
+		}
+		return classes;
+	}
+
+	/**
+	 * Sends the guests in the order the original greedy visited them, building it on first use.
+	 * The catalog never changes, so every solve of it shares one order
+	 * @return guest positions in visiting order
+	 */
+	int[] guestVisitOrder() {
+		int[] order = guestVisitOrder;
+		if (order == null) {
+			synchronized (this) {
+				order = guestVisitOrder;
+				if (order == null) {
+					order = visitOrder(guestNames, guestNames.length);
+					guestVisitOrder = order;
+				}
+			}
+		}
+		return order;
+	}
+
+	/**
+	 * Orders guests listed in the given order the way the original greedy visited them: it filled a HashMap from people.txt
+	 * and iterated a copy of it. The copy's table is sized for all the guests at once, so it can iterate in a different order
+	 * from the map it was made from, and the only way to get that order is to make the same copy
+	 * @param names distinct guest names in people.txt order
+	 * @param count number of names to order
+	 * @return positions in the names, in visiting order
+	 */
+	static int[] visitOrder(String[] names, int count) {
+		Map<String, Integer> positions = new HashMap<String, Integer>();
+		for (int position = 0; position < count; position++) {
+			positions.put(names[position], position);
+		}
+		int[] order = new int[count];
+		int visited = 0;
+		for (int position : new HashMap<String, Integer>(positions).values()) {
+			order[visited++] = position;
+		}
+		return order;
+	}
+
+	/**
+	 * Sends the number of distinct item names, priced or not
+	 * @return
+	 */
+	public int getItemCount() {
+		return itemNames.length;
+	}
+
+	/**
+	 * Sends the id of an item name, or -1 if no price list or guest mentions it
+	 * @param itemName
+	 * @return
+	 */
+	public int getItemId(String itemName) {
+		Integer id = itemIds.get(itemName);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Sends the name of the item with the given id
+	 * @param itemId
+	 * @return
+	 */
+	public String getItemName(int itemId) {
+		return itemNames[itemId];
+	}
+
+	/**
+	 * Sends the unit price of the item in cents, or NO_PRICE if it is not in either price list
+	 * @param itemId
+	 * @return
+	 */
+	public long getPriceCents(int itemId) {
+		return priceCents[itemId];
+	}
+
+	/**
+	 * Sends the number of guests, in the order they appear in people.txt
+	 * @return
+	 */
+	public int getGuestCount() {
+		return guestNames.length;
+	}
+
+	/**
+	 * Sends the name of the guest at the given position
+	 * @param guest
+	 * @return
+	 */
+	public String getGuestName(int guest) {
+		return guestNames[guest];
+	}
+
+	/**
+	 * Sends a copy of the item ids the guest prefers, in the order listed
+	 * @param guest
+	 * @return
+	 */
+	public int[] getGuestPreferences(int guest) {
+		return Arrays.copyOfRange(preferenceItems, preferenceStart[guest], preferenceStart[guest + 1]);
+	}
+
+	/**
+	 * Sends the position of the guest's first preference among the preferences of all guests.
+	 * A guest's preferences end where the next guest's start, and the position after the last guest is getPreferenceCount
+	 * @param guest from 0 up to and including getGuestCount
+	 * @return
+	 */
+	public int getPreferenceStart(int guest) {
+		return preferenceStart[guest];
+	}
+
+	/**
+	 * Sends the item id at a position among the preferences of all guests
+	 * @param position
+	 * @return
+	 */
+	public int getPreferenceItem(int position) {
+		return preferenceItems[position];
+	}
+
+	/**
+	 * Sends the number of preferences listed by all guests together
+	 * @return
+	 */
+	public int getPreferenceCount() {
+		return preferenceItems.length;
+	}
+
+	/**
+	 * Sends the array of where each guest's preferences start, shared with the catalog and never to be modified
+	 * @return
+	 */
+	int[] preferenceStarts() {
+		return preferenceStart;
+	}
+
+	/**
+	 * Sends the array of every guest's preferences, shared with the catalog and never to be modified
+	 * @return
+	 */
+	int[] preferenceItems() {
+		return preferenceItems;
+	}
+
+	/**
+	 * Sends the number of lines people.txt had when it was read
+	 * @return
+	 */
+	long getPeopleLineCount() {
+		return peopleLineCount;
+	}
+
+	/**
+	 * Sends the drinks, food or people file the catalog was read from
+	 * @param file DRINKS, FOOD or PEOPLE
+	 * @return
+	 */
+	File getFile(int file) {
+		return files[file];
+	}
+
+	/**
+	 * Sends the size the file had when it was read
+	 * @param file DRINKS, FOOD or PEOPLE
+	 * @return
+	 */
+	long getFileSize(int file) {
+		return fileSizes[file];
+	}
+
+	/**
+	 * Sends the modification time the file had when it was read
+	 * @param file DRINKS, FOOD or PEOPLE
+	 * @return
+	 */
+	long getModifiedTime(int file) {
+		return modifiedTimes[file];
+	}
+
+	/**
+	 * Sends the checksum of the file's contents when it was read
+	 * @param file DRINKS, FOOD or PEOPLE
+	 * @return
+	 */
+	long getContentHash(int file) {
+		return contentHashes[file];
+	}
+
+	/**
+	 * Sends a number that is different for every parse, so results computed from one catalog can be told apart from another
+	 * @return
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Read-only map view of the guests and the names of the items they prefer. Looking up a guest by name
+	 * builds an index of the guest names on first use; iterating needs nothing beyond the catalog's arrays
+	 */
+	private final class PreferencesView extends AbstractMap<String, List<String>> {
+
+		private volatile Map<String, Integer> guestIds;
+
+		@Override
+		public Set<Entry<String, List<String>>> entrySet() {
+			return new AbstractSet<Entry<String, List<String>>>() {
+				@Override
+				public Iterator<Entry<String, List<String>>> iterator() {
+					return new Iterator<Entry<String, List<String>>>() {
+						private int guest;
+
+						@Override
+						public boolean hasNext() {
+							return guest < guestNames.length;
+						}
+
+						@Override
+						public Entry<String, List<String>> next() {
+							if (!hasNext()) {
+								throw new NoSuchElementException();
+							}
+							Entry<String, List<String>> entry =
+									new SimpleImmutableEntry<String, List<String>>(guestNames[guest], new GuestItems(guest));
+							guest++;
+							return entry;
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return guestNames.length;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return guestNames.length;
+		}
+
+		@Override
+		public boolean containsKey(Object guestName) {
+			return guestIds().containsKey(guestName);
+		}
+
+		@Override
+		public List<String> get(Object guestName) {
+			Integer guest = guestIds().get(guestName);
+			return guest == null ? null : new GuestItems(guest);
+		}
+
+		private Map<String, Integer> guestIds() {
+			Map<String, Integer> ids = guestIds;
+			if (ids == null) {
+				ids = new HashMap<String, Integer>(guestNames.length * 2);
+				for (int guest = 0; guest < guestNames.length; guest++) {
+					ids.put(guestNames[guest], guest);
+				}
+				guestIds = ids;
+			}
+			return ids;
+		}
+	}
+
+	/**
+	 * Read-only list view of the names of the items one guest prefers
+	 */
+	private final class GuestItems extends AbstractList<String> implements RandomAccess {
+
+		private final int start;
+		private final int size;
+
+		private GuestItems(int guest) {
+			start = preferenceStart[guest];
+			size = preferenceStart[guest + 1] - start;
+		}
+
+		@Override
+		public String get(int index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+			return itemNames[preferenceItems[start + index]];
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+}
@@ -4,22 +4,35 @@ import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
+import javafx.animation.PauseTransition;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.SimpleIntegerProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.concurrent.Task;
+import javafx.concurrent.WorkerStateEvent;
+import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TextField;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
@@ -28,6 +41,8 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
+import javafx.util.Callback;
+import javafx.util.Duration;
 
 /**
  * The main GUI for the planning application
@@ -53,7 +68,7 @@ public class PartyPlanner {
 	private static final String BUDGET_OUTLINE_COLOR = "limegreen;";
 	private static final String LIST_ENTRY_BRIDGE = ": ";
 	private static final String REMAINING_LIST_TITLE = "Remaining Items";
-	private static final String PREFERENCES_MATCHER = "\\[(.*?)\\]";
+	private static final String PREFERENCES_SEPARATOR = ", ";
 	private static final int STATISTICS_GAP = 20;
 	private static final String BOX_OUTLINE = "-fx-border-style: solid inside;" +
 													 "-fx-border-width: 2;" +
@@ -67,28 +82,50 @@ public class PartyPlanner {
 	private static final String LEFTOVER_FUNDS_TRACKER_TITLE = "Leftover Funds: ";
 	private static final String AFFORDABLE_ITEMS_TITLE = "# of Items to Buy: ";
 	private static final String REMAINING_ITEMS_TITLE = "# of Items Remaining: ";
+	private static final String SOLVER_THREAD_NAME = "party-planner-solver";
+	/** Phases of a solve, each a step of the progress bar, with one more step for building the lists */
+	private static final List<PlannerMetrics.Phase> SOLVE_PHASES = Arrays.asList(PlannerMetrics.Phase.INDEX_BUILD,
+			PlannerMetrics.Phase.SELECTION, PlannerMetrics.Phase.REMAINING_ITEMS);
+	private static final int SOLVE_STEPS = SOLVE_PHASES.size() + 1;
+	private static final String LIVE_UPDATES_TEXT = "Update as I type";
+	private static final double LIVE_UPDATE_DELAY_MILLIS = 150;
+	private static final int PLAN_CACHE_SIZE = 256;
+	/** Cached plans may use up to this share of the heap, since their remaining items grow with the guest list */
+	private static final int PLAN_CACHE_HEAP_FRACTION = 4;
+	private static final double LIST_ROW_HEIGHT = 24;
 	
 	private Stage stage;
 	private Scene scene;
 	private BorderPane root;
 	
 	private TextField budgetInput;
+	private CheckBox liveUpdates;
+	private PauseTransition liveUpdateDelay;
+	private ArrayList<Label> errorMessages;
 	private HBox budgetBox;
 	private HBox borderBox;
 	private double budget;
 	
-	private ObservableList<String> items;
-	private ObservableList<String> remainingItems;
-	private ListView <String> itemList;
-	private ListView <String> remainingItemList;
+	private RowList<ItemRow> items;
+	private RowList<RemainingRow> remainingItems;
+	private ListView <ItemRow> itemList;
+	private ListView <RemainingRow> remainingItemList;
 	private Label spendingAmount;
 	private Label leftoverAmount;
 	private SimpleIntegerProperty itemsCount;
 	private SimpleIntegerProperty remainingCount;
 	private DecimalFormat currency;
+	private ProgressBar solveProgress;
+	
+	private ExecutorService solver;
+	private Task<PlannerResult> runningSolve;
+	private Future<?> warmUp;
+	private PlanCache planCache;
+	private SpendingAlgorithm spendingAlgorithm;
+	private boolean firstPlanShown;
 	
 	/**
-	 * Constructor that sets up the structure of the main planner frame
+	 * Constructor that sets up the structure of the main planner frame, without showing it yet
 	 * @param currentStage
 	 */
 	public PartyPlanner (Stage currentStage) {
@@ -98,18 +135,71 @@ public class PartyPlanner {
 		root.setStyle("-fx-background-color: #" + BACKGROUND_COLOR_CODE);
 		root.setPadding(new Insets(PLANNER_PADDING, PLANNER_PADDING, PLANNER_PADDING, PLANNER_PADDING));
 		scene = new Scene(root, WelcomeScreen.WIDTH, WelcomeScreen.HEIGHT, WelcomeScreen.BACKGROUND_COLOR);
-		stage.setScene(scene);
+		solver = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable solve) {
+				Thread solverThread = new Thread(solve, SOLVER_THREAD_NAME);
+				solverThread.setDaemon(true);
+				return solverThread;
+			}
+		});
+		planCache = new PlanCache(PLAN_CACHE_SIZE, Runtime.getRuntime().maxMemory() / PLAN_CACHE_HEAP_FRACTION);
+		spendingAlgorithm = new SpendingAlgorithm();
 		
 	}
 	
 	/**
-	 * Creates the major features of the main planner frame
+	 * Loads the shared catalog and plans one throwaway budget on the solver thread while the welcome screen is showing,
+	 * so the files are parsed and the catalog's index is built before the first budget is entered, and later solves reuse it.
+	 * A budget entered during the warm-up solve cancels it rather than waiting for it; it only waits for the files,
+	 * which it needs anyway
+	 */
+	public void preload() {
+		solver.execute(new Runnable() {
+			@Override
+			public void run() {
+				PartyCatalog.getInstance();
+			}
+		});
+		warmUp = solver.submit(new Runnable() {
+			@Override
+			public void run() {
+				PartyCatalog catalog = PartyCatalog.getInstance();
+				double warmUpBudget = warmUpBudget(catalog);
+				Plan plan = spendingAlgorithm.solve(catalog, warmUpBudget);
+				PlannerResult result = new PlannerResult(warmUpBudget, plan.getAmountSpent());
+				listItems(plan.getItemsBought(), result);
+				listRemainingItems(plan.getRemainingItems(), result);
+				PlannerMetrics.recordPlannerReady();
+			}
+		});
+	}
+	
+	/**
+	 * Half of what every preference would cost, so the warm-up buys some items and leaves others remaining
+	 * @param catalog
+	 * @return
+	 */
+	private static double warmUpBudget(PartyCatalog catalog) {
+		long totalCents = 0;
+		for (int slot = 0; slot < catalog.getPreferenceCount(); slot++) {
+			long price = catalog.getPriceCents(catalog.getPreferenceItem(slot));
+			if (price != PartyCatalog.NO_PRICE) {
+				totalCents += price;
+			}
+		}
+		return totalCents / 200.0;
+	}
+	
+	/**
+	 * Creates the major features of the main planner frame and shows it
 	 */
 	public void createPlanner() {
 		createBudgetInput();
 		createItemList();
 		createRemainingList();
 		createStatisticsTracker();
+		stage.setScene(scene);
 	}
 	
 	/**
@@ -118,14 +208,17 @@ public class PartyPlanner {
 	private void createBudgetInput() {
 		Label budgetLabel = new Label (BUDGET_LABEL_TEXT);
 		budgetInput = new TextField();
+		errorMessages = new ArrayList<Label>();
 		handleEnter();
+		liveUpdates = new CheckBox(LIVE_UPDATES_TEXT);
+		handleLiveUpdates();
 		
 		budgetBox = new HBox(BUDGET_BOX_GAP);
 		HBox inputBox = new HBox(INPUT_BOX_GAP);
 		Label dollarSign = new Label(DOLLAR_SIGN);
 		inputBox.getChildren().addAll(dollarSign, budgetInput);
 		inputBox.setAlignment(Pos.CENTER);
-		budgetBox.getChildren().addAll(budgetLabel, inputBox);
+		budgetBox.getChildren().addAll(budgetLabel, inputBox, liveUpdates);
 		budgetBox.setAlignment(Pos.CENTER);
 		
 		budgetBox.setStyle(BOX_OUTLINE + BUDGET_OUTLINE_COLOR);
@@ -138,11 +231,9 @@ public class PartyPlanner {
 	}
 	
 	/**
-	 * Checks the user budget input, and if it is valid based on the regex specifications,
-	 * it is sent to the Spending Algorithm for the necessary food and drinks optimization
+	 * Sends the budget to the Spending Algorithm when the user presses ENTER
 	 */
 	private void handleEnter() {
-		ArrayList<Label> errorMessages = new ArrayList<Label>();
 		budgetInput.setOnKeyPressed(new EventHandler<KeyEvent>()
 		{
 			@Override
@@ -150,56 +241,87 @@ public class PartyPlanner {
 			{
 				if (enter.getCode().equals(KeyCode.ENTER)) {
 					
+					liveUpdateDelay.stop();
 					resetData();
+					cancelRunningSolve();
+					submitBudget(true);
 					
-					if (!budgetInput.getText().isEmpty() && budgetInput.getText().matches(REGEX_MATCH)) 
-					{
-						if(errorMessages.size()>0) {
-							borderBox.getChildren().remove(errorMessages.get(0));
-							errorMessages.remove(0);
-						}
-						String budgetEntry = budgetInput.getText();
-						double budgetDouble;
-						//Handles case where user inputs budget with commas by removing them for internal use
-						if (budgetEntry.contains(COMMA)) {
-							try {
-								NumberFormat removeCommas = NumberFormat.getInstance(Locale.US);
-						        budgetDouble = removeCommas.parse(budgetEntry).doubleValue();
-						        updateAll(budgetDouble);
-							} catch (ParseException e) {
-								System.out.println(INCORRECT_ENTRY);
-							}
-						}
-						else {
-							budgetDouble = Double.parseDouble(budgetEntry);
-							updateAll(budgetDouble);
-						}
-					}
-					else {
-						if(errorMessages.size()>0) {
-							borderBox.getChildren().remove(errorMessages.get(0));
-							errorMessages.remove(0);
-						}
-						Label blankBudget = new Label(BUDGET_ERROR_MESSAGE);
-						blankBudget.setTextFill(BUDGET_ERROR_COLOR);
-						borderBox.getChildren().add(blankBudget);
-						errorMessages.add(blankBudget);
-					}
-					
 				}
 			}
 		});
 	}
 	
 	/**
-	 * Resets the tracker statistics and elements of the ListView
+	 * When live updates are turned on, sends the budget to the Spending Algorithm once the user
+	 * has stopped typing for a short moment, so every keystroke does not start its own solve
+	 */
+	private void handleLiveUpdates() {
+		liveUpdateDelay = new PauseTransition(Duration.millis(LIVE_UPDATE_DELAY_MILLIS));
+		liveUpdateDelay.setOnFinished(new EventHandler<ActionEvent>() {
+			@Override
+			public void handle(ActionEvent delayOver) {
+				submitBudget(false);
+			}
+		});
+		budgetInput.textProperty().addListener(new ChangeListener<String>() {
+			@Override
+			public void changed(ObservableValue<? extends String> budgetText, String oldText, String newText) {
+				if (liveUpdates.isSelected()) {
+					liveUpdateDelay.playFromStart();
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Checks the user budget input, and if it is valid based on the regex specifications,
+	 * it is sent to the Spending Algorithm for the necessary food and drinks optimization
+	 * @param showError whether an invalid budget shows the error message, which live updates skip while the user is still typing
+	 */
+	private void submitBudget(boolean showError) {
+		if (!budgetInput.getText().isEmpty() && budgetInput.getText().matches(REGEX_MATCH)) 
+		{
+			if(errorMessages.size()>0) {
+				borderBox.getChildren().remove(errorMessages.get(0));
+				errorMessages.remove(0);
+			}
+			String budgetEntry = budgetInput.getText();
+			double budgetDouble;
+			//Handles case where user inputs budget with commas by removing them for internal use
+			if (budgetEntry.contains(COMMA)) {
+				try {
+					NumberFormat removeCommas = NumberFormat.getInstance(Locale.US);
+			        budgetDouble = removeCommas.parse(budgetEntry).doubleValue();
+			        updateAll(budgetDouble);
+				} catch (ParseException e) {
+					System.out.println(INCORRECT_ENTRY);
+				}
+			}
+			else {
+				budgetDouble = Double.parseDouble(budgetEntry);
+				updateAll(budgetDouble);
+			}
+		}
+		else if (showError) {
+			if(errorMessages.size()>0) {
+				borderBox.getChildren().remove(errorMessages.get(0));
+				errorMessages.remove(0);
+			}
+			Label blankBudget = new Label(BUDGET_ERROR_MESSAGE);
+			blankBudget.setTextFill(BUDGET_ERROR_COLOR);
+			borderBox.getChildren().add(blankBudget);
+			errorMessages.add(blankBudget);
+		}
+	}
+	
+	/**
+	 * Resets the tracker statistics. The ListViews keep their rows until the new plan arrives,
+	 * so only the rows that differ from the last plan are replaced
 	 */
 	private void resetData() {
-		items.clear();
 		itemsCount.set(0);
 		spendingAmount.setText(DEFAULT_AMOUNT);
 		
-		remainingItems.clear();
 		remainingCount.set(0);
 		leftoverAmount.setText(DEFAULT_AMOUNT);
 	}
@@ -209,13 +331,26 @@ public class PartyPlanner {
 	 */
 	private void createItemList() {
 
-		items = FXCollections.observableArrayList();
+		items = new RowList<ItemRow>();
 		VBox itemBox = new VBox();
 		itemBox.setAlignment(Pos.CENTER);
 		Label itemLabel = new Label(ITEM_LIST_TITLE);
-		itemList = new ListView <String> ();
+		itemList = new ListView <ItemRow> (items);
 		itemList.setPrefSize(WelcomeScreen.CENTER_WIDTH-PLANNER_PADDING, WelcomeScreen.HEIGHT);
 		itemList.setEditable(true);
+		itemList.setFixedCellSize(LIST_ROW_HEIGHT);
+		itemList.setCellFactory(new Callback<ListView<ItemRow>, ListCell<ItemRow>>() {
+			@Override
+			public ListCell<ItemRow> call(ListView<ItemRow> list) {
+				return new ListCell<ItemRow>() {
+					@Override
+					protected void updateItem(ItemRow row, boolean empty) {
+						super.updateItem(row, empty);
+						setText(empty || row == null ? null : row.item + LIST_ENTRY_BRIDGE + row.units);
+					}
+				};
+			}
+		});
 
 		itemBox.getChildren().addAll(itemLabel, itemList);
 
@@ -223,37 +358,136 @@ public class PartyPlanner {
 	}
 	
 	/**
-	 * Updates all the statistical displays and ListViews accordingly
+	 * Starts solving the budget on the background solver thread, cancelling any solve that is still running,
+	 * so the window keeps responding while a large guest list is planned. Budgets already planned with the
+	 * current files are taken from the plan cache instead of being solved again
 	 * @param currentBudget
 	 */
 	private void updateAll(double currentBudget) {
 		budget = currentBudget;
 		currency = new DecimalFormat(CURRENCY_FORMAT);
-		SpendingAlgorithm spendingAlgorithm = new SpendingAlgorithm();
-		Map<String, Integer> consumablesMap = spendingAlgorithm.selectConsumables(budget);
-		double amountSpent = spendingAlgorithm.getAmountSpent();
-		Map <String, ArrayList<String>> remainingMap = spendingAlgorithm.getRemainingItems();
-		
-		updateItems(consumablesMap);
-		updateRemainingItems(remainingMap);
-		updateAmountSpent(amountSpent);
-		updateLeftoverFunds(currentBudget, amountSpent);
+		cancelRunningSolve();
+		
+		final double solveBudget = budget;
+		final long requested = System.nanoTime();
+		final Task<PlannerResult> solve = new Task<PlannerResult>() {
+			@Override
+			protected PlannerResult call() {
+				updateProgress(0, SOLVE_STEPS);
+				PartyCatalog catalog = PartyCatalog.getInstance();
+				if (isCancelled()) {
+					return null;
+				}
+				//The engines report each phase as it goes, and throw a CancellationException soon after a newer budget cancels them
+				SolveProgress.setListener(new SolveProgress.Listener() {
+					@Override
+					public void progress(PlannerMetrics.Phase phase, long done, long total) {
+						int step = SOLVE_PHASES.indexOf(phase);
+						if (step >= 0 && total > 0) {
+							updateProgress(step + (double) done / total, SOLVE_STEPS);
+						}
+					}
+				});
+				Plan plan;
+				Map<String, List<String>> remaining;
+				try {
+					plan = planCache.get(catalog, solveBudget);
+					if (plan == null) {
+						plan = spendingAlgorithm.solve(catalog, solveBudget);
+						planCache.put(catalog, solveBudget, plan);
+					}
+					remaining = plan.getRemainingItems();
+				}
+				finally {
+					SolveProgress.setListener(null);
+				}
+				if (isCancelled()) {
+					return null;
+				}
+				updateProgress(SOLVE_PHASES.size(), SOLVE_STEPS);
+				PlannerResult result = new PlannerResult(solveBudget, plan.getAmountSpent());
+				PlannerMetrics.Timer listsTimer = PlannerMetrics.start(PlannerMetrics.Phase.UI_LISTS);
+				listItems(plan.getItemsBought(), result);
+				listRemainingItems(remaining, result);
+				PlannerMetrics.stop(listsTimer);
+				updateProgress(SOLVE_STEPS, SOLVE_STEPS);
+				return result;
+			}
+		};
+		//Succeeded is delivered on the JavaFX Application Thread, so the whole result is shown in a single update
+		solve.setOnSucceeded(new EventHandler<WorkerStateEvent>() {
+			@Override
+			public void handle(WorkerStateEvent succeeded) {
+				if (solve == runningSolve) {
+					runningSolve = null;
+					showResult(solve.getValue());
+					if (!firstPlanShown) {
+						firstPlanShown = true;
+						//Read over JMX, see PlannerMetricsMXBean.getFirstPlanLatencyNanos
+						PlannerMetrics.recordFirstPlan(System.nanoTime() - requested);
+					}
+				}
+			}
+		});
+		solve.setOnFailed(new EventHandler<WorkerStateEvent>() {
+			@Override
+			public void handle(WorkerStateEvent failed) {
+				if (solve == runningSolve) {
+					runningSolve = null;
+					solve.getException().printStackTrace();
+				}
+			}
+		});
+		
+		runningSolve = solve;
+		solveProgress.progressProperty().bind(solve.progressProperty());
+		solver.execute(solve);
+	}
+	
+	/**
+	 * Cancels the warm-up and the solve started by an earlier budget entry, if they have not finished yet. Interrupting the solver thread
+	 * stops the engine within a few thousand steps, so the newer budget does not wait for the old solve to finish
+	 */
+	private void cancelRunningSolve() {
+		if (warmUp != null) {
+			warmUp.cancel(true);
+			warmUp = null;
+		}
+		if (runningSolve != null) {
+			runningSolve.cancel(true);
+			runningSolve = null;
+			solveProgress.progressProperty().unbind();
+			solveProgress.setProgress(0);
+		}
 	}
 	
 	/**
-	 * Updates the food and drinks displayed in the Food and Drinks ListView,
+	 * Replaces the ListViews and statistics with a finished solve
+	 * @param result
+	 */
+	private void showResult(PlannerResult result) {
+		items.update(result.items);
+		itemsCount.set(result.itemsCount);
+		remainingItems.update(result.remainingItems);
+		remainingCount.set(result.remainingCount);
+		updateAmountSpent(result.amountSpent);
+		updateLeftoverFunds(result.budget, result.amountSpent);
+	}
+	
+	/**
+	 * Builds the rows for the Food and Drinks ListView in alphabetical order,
 	 * along with the number of items to buy in the statistics panel
 	 * @param newItems
+	 * @param result
 	 */
-	private void updateItems(Map <String, Integer> newItems) {
+	private void listItems(Map <String, Integer> newItems, PlannerResult result) {
 		int itemCounter = 0;
 		for (Entry<String, Integer> itemEntry : newItems.entrySet()) {
-			String listElement = itemEntry.getKey() + LIST_ENTRY_BRIDGE + itemEntry.getValue();
 			itemCounter += itemEntry.getValue();
-			items.add(listElement);
+			result.items.add(new ItemRow(itemEntry.getKey(), itemEntry.getValue()));
 		}
-		itemList.setItems(items);
-		itemsCount.set(itemCounter);
+		Collections.sort(result.items, ItemRow.BY_ITEM);
+		result.itemsCount = itemCounter;
 	}
 	
 	/**
@@ -271,13 +505,27 @@ public class PartyPlanner {
 	 */
 	private void createRemainingList() {
 		
-		remainingItems = FXCollections.observableArrayList();
+		remainingItems = new RowList<RemainingRow>();
 		VBox remainingItemBox = new VBox();
 		remainingItemBox.setAlignment(Pos.CENTER);
 		Label remainingItemLabel = new Label(REMAINING_LIST_TITLE);
-		remainingItemList = new ListView <String> ();
+		remainingItemList = new ListView <RemainingRow> (remainingItems);
 		remainingItemList.setPrefSize(WelcomeScreen.CENTER_WIDTH, WelcomeScreen.HEIGHT);
 		remainingItemList.setEditable(true);
+		remainingItemList.setFixedCellSize(LIST_ROW_HEIGHT);
+		//Only the rows on screen have their text built, so a guest list of any size scrolls smoothly
+		remainingItemList.setCellFactory(new Callback<ListView<RemainingRow>, ListCell<RemainingRow>>() {
+			@Override
+			public ListCell<RemainingRow> call(ListView<RemainingRow> list) {
+				return new ListCell<RemainingRow>() {
+					@Override
+					protected void updateItem(RemainingRow row, boolean empty) {
+						super.updateItem(row, empty);
+						setText(empty || row == null ? null : remainingListElement(row.guest, row.remaining));
+					}
+				};
+			}
+		});
 
 		remainingItemBox.getChildren().addAll(remainingItemLabel, remainingItemList);
 
@@ -286,34 +534,35 @@ public class PartyPlanner {
 	}
 	
 	/**
-	 * Updates the remaining items that are displayed in the Remaining Items ListView
+	 * Builds the rows for the Remaining Items ListView in alphabetical order of the guests
 	 * @param remaining
+	 * @param result
 	 */
-	private void updateRemainingItems (Map<String, ArrayList<String>> remaining) {
+	private void listRemainingItems (Map<String, List<String>> remaining, PlannerResult result) {
 		int numPreferencesRemaining = 0;
-		for (Entry<String, ArrayList<String>> itemEntry : remaining.entrySet()) {
-			String remainingListElement = itemEntry.getKey() + LIST_ENTRY_BRIDGE + extractRemainingItems(itemEntry.getValue().toString());
-			remainingItems.add(remainingListElement);
-			for (int i = 0; i < itemEntry.getValue().size(); i++) {
-				numPreferencesRemaining++;
-			}
+		for (Entry<String, List<String>> itemEntry : remaining.entrySet()) {
+			result.remainingItems.add(new RemainingRow(itemEntry.getKey(), itemEntry.getValue()));
+			numPreferencesRemaining += itemEntry.getValue().size();
 		}
-		remainingItemList.setItems(remainingItems);
-		remainingCount.set(numPreferencesRemaining);
+		Collections.sort(result.remainingItems, RemainingRow.BY_GUEST);
+		result.remainingCount = numPreferencesRemaining;
 	}
 	
 	/**
-	 * Parses the remaining food and drink items for the Remaining Items ListView
-	 * @param item
+	 * Builds the Remaining Items ListView entry for a guest straight from their list of remaining food and drink items
+	 * @param guest
+	 * @param remaining
 	 * @return
 	 */
-	private String extractRemainingItems (String item) {
-		Matcher matcher = Pattern.compile(PREFERENCES_MATCHER).matcher(item);
-		String parsedName = null;
-		while(matcher.find()) {
-			return (matcher.group(1));
+	private String remainingListElement (String guest, List<String> remaining) {
+		StringBuilder listElement = new StringBuilder(guest).append(LIST_ENTRY_BRIDGE);
+		for (int i = 0; i < remaining.size(); i++) {
+			if (i > 0) {
+				listElement.append(PREFERENCES_SEPARATOR);
+			}
+			listElement.append(remaining.get(i));
 		}
-		return parsedName;
+		return listElement.toString();
 	}
 	
 	private void updateLeftoverFunds(double budget, double amtSpent) {
@@ -333,11 +582,14 @@ public class PartyPlanner {
 		remainingCount = new SimpleIntegerProperty(0);
 		spendingAmount = new Label(DEFAULT_AMOUNT);
 		leftoverAmount = new Label(DEFAULT_AMOUNT);
+		solveProgress = new ProgressBar(0);
 		
 		HBox purchaseStatistics = createStatisticsBox(ITEM_STATISTICS_OUTLINE_COLOR, COST_TRACKER_TITLE, spendingAmount, itemsCount, AFFORDABLE_ITEMS_TITLE);
 		HBox remainingStatistics = createStatisticsBox(REMAINING_STATISTICS_OUTLINE_COLOR, LEFTOVER_FUNDS_TRACKER_TITLE, leftoverAmount, remainingCount, REMAINING_ITEMS_TITLE);
 		
-		plannerStatistics.getChildren().addAll(purchaseStatistics, remainingStatistics);
+		VBox progressBox = new VBox(solveProgress);
+		progressBox.setAlignment(Pos.CENTER);
+		plannerStatistics.getChildren().addAll(purchaseStatistics, remainingStatistics, progressBox);
 		
 		root.setBottom(plannerStatistics);
 		
@@ -370,4 +622,92 @@ public class PartyPlanner {
 		return statisticsBox;
 	}
 	
-}
+	/**
+	 * ListView entries and statistics prepared by a background solve
+	 */
+	private static class PlannerResult {
+		
+		private final double budget;
+		private final double amountSpent;
+		private final List<ItemRow> items = new ArrayList<ItemRow>();
+		private int itemsCount;
+		private final List<RemainingRow> remainingItems = new ArrayList<RemainingRow>();
+		private int remainingCount;
+		
+		private PlannerResult(double plannedBudget, double spent) {
+			budget = plannedBudget;
+			amountSpent = spent;
+		}
+	}
+	
+	/**
+	 * Row of the Food and Drinks ListView: an item and the number of units to buy
+	 */
+	private static final class ItemRow {
+		
+		private static final Comparator<ItemRow> BY_ITEM = new Comparator<ItemRow>() {
+			@Override
+			public int compare(ItemRow first, ItemRow second) {
+				return first.item.compareTo(second.item);
+			}
+		};
+		
+		private final String item;
+		private final int units;
+		
+		private ItemRow(String itemName, int unitCount) {
+			item = itemName;
+			units = unitCount;
+		}
+		
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof ItemRow)) {
+				return false;
+			}
+			ItemRow row = (ItemRow) other;
+			return units == row.units && item.equals(row.item);
+		}
+		
+		@Override
+		public int hashCode() {
+			return item.hashCode() * 31 + units;
+		}
+	}
+	
+	/**
+	 * Row of the Remaining Items ListView: a guest and the preferences the budget could not cover
+	 */
+	private static final class RemainingRow {
+		
+		private static final Comparator<RemainingRow> BY_GUEST = new Comparator<RemainingRow>() {
+			@Override
+			public int compare(RemainingRow first, RemainingRow second) {
+				return first.guest.compareTo(second.guest);
+			}
+		};
+		
+		private final String guest;
+		private final List<String> remaining;
+		
+		private RemainingRow(String guestName, List<String> remainingItems) {
+			guest = guestName;
+			remaining = remainingItems;
+		}
+		
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof RemainingRow)) {
+				return false;
+			}
+			RemainingRow row = (RemainingRow) other;
+			return guest.equals(row.guest) && remaining.equals(row.remaining);
+		}
+		
+		@Override
+		public int hashCode() {
+			return guest.hashCode() * 31 + remaining.hashCode();
+		}
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,387 @@
+package party_Planning;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams people.txt through a FileChannel and turns each three line guest record straight into item ids,
+ * appended to one flat array, without holding the lines or a map of preference strings in memory. Large files are memory-mapped a window at a time,
+ * and item names are matched on their bytes, so a String is only created for each guest name and each new item name.
+ *
+ * Follows the same rules as splitting the file into lines: every third line starting with the first is a guest name,
+ * the next two lines list preferences separated by ", ", and a guest listed twice keeps their first position
+ * with the preferences from their last record. Lines end with \n, \r\n or \r
+ * @author Samarth Desai
+ *
+ */
+final class PeopleFileParser {
+
+	private static final int LINES_PER_GUEST = 3;
+	private static final int MAP_THRESHOLD = 1 << 20;
+	private static final int WINDOW_SIZE = 64 << 20;
+	private static final byte LINE_FEED = '\n';
+	private static final byte CARRIAGE_RETURN = '\r';
+	private static final byte COMMA = ',';
+	private static final byte SPACE = ' ';
+	private static final int NO_GUEST = -1;
+
+	private final List<String> itemNames;
+	private byte[][] itemBytes;
+	private int[] itemHashes;
+	private int[] itemSlots;
+
+	private final Map<String, Integer> guestIds = new HashMap<String, Integer>();
+	private final List<String> guestNames = new ArrayList<String>();
+	/** Every record's preferences in file order, with the position and length of each guest's last record */
+	private int[] records = new int[1024];
+	private int recordsSize;
+	private int[] guestRecordStart = new int[256];
+	private int[] guestRecordLength = new int[256];
+	private boolean guestRepeated;
+	private int currentGuest = NO_GUEST;
+	private int currentStart;
+
+	private byte[] line = new byte[256];
+	private long lineNumber;
+
+	/**
+	 * Sets up a parser that gives the already known item names their position in the list as id,
+	 * and adds every new name found in people.txt to the end of the list
+	 * @param knownItems
+	 */
+	PeopleFileParser(List<String> knownItems) {
+
+		itemNames = knownItems;
+		itemBytes = new byte[Math.max(16, knownItems.size() * 2)][];
+		itemHashes = new int[itemBytes.length];
+		itemSlots = new int[Integer.highestOneBit(itemBytes.length) * 4];
+		for (int id = 0; id < knownItems.size(); id++) {
+			byte[] name = knownItems.get(id).getBytes(StandardCharsets.UTF_8);
+			insert(id, name, hash(name, 0, name.length));
+		}
+
+	}
+
+	/**
+	 * Sets up a parser that continues after the guests of an existing catalog, to read lines appended to its people file.
+	 * A guest named again in the new lines keeps their position with the preferences of their new record
+	 * @param knownItems every item name of the catalog, in id order
+	 * @param previous
+	 * @param lines number of lines of the people file the catalog was parsed from, which must be between two records
+	 */
+	PeopleFileParser(List<String> knownItems, PartyCatalog previous, long lines) {
+
+		this(knownItems);
+		int guestCount = previous.getGuestCount();
+		int[] starts = previous.preferenceStarts();
+		records = Arrays.copyOf(previous.preferenceItems(), Math.max(records.length, starts[guestCount] * 2));
+		recordsSize = starts[guestCount];
+		guestRecordStart = Arrays.copyOf(starts, Math.max(guestRecordStart.length, guestCount * 2));
+		guestRecordLength = new int[guestRecordStart.length];
+		for (int guest = 0; guest < guestCount; guest++) {
+			String guestName = previous.getGuestName(guest);
+			guestIds.put(guestName, guest);
+			guestNames.add(guestName);
+			guestRecordLength[guest] = starts[guest + 1] - starts[guest];
+		}
+		lineNumber = lines;
+
+	}
+
+	/**
+	 * Whether a file with the given number of lines ends between two guest records, so lines added to it start a new record
+	 * @param lines
+	 * @return
+	 */
+	static boolean isBetweenRecords(long lines) {
+		return lines >= 0 && lines % LINES_PER_GUEST == 0;
+	}
+
+	/**
+	 * Reads every guest record in the file
+	 * @param peopleFile
+	 * @throws IOException
+	 */
+	void parse(File peopleFile) throws IOException {
+		parse(peopleFile, 0);
+	}
+
+	/**
+	 * Reads the guest records in the file from the given byte position, which must be at the start of a line
+	 * @param peopleFile
+	 * @param from
+	 * @throws IOException
+	 */
+	void parse(File peopleFile, long from) throws IOException {
+		FileChannel channel = FileChannel.open(peopleFile.toPath(), StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			long position = from;
+			int windowSize = WINDOW_SIZE;
+			while (position < size) {
+				int length = (int) Math.min(windowSize, size - position);
+				boolean lastWindow = position + length == size;
+				int consumed = readLines(window(channel, size, position, length), lastWindow);
+				if (consumed == 0 && !lastWindow) {
+					//A single line is longer than the window, so the window grows until the line fits
+					windowSize = windowSize > Integer.MAX_VALUE / 2 ? Integer.MAX_VALUE : windowSize * 2;
+				}
+				position += consumed;
+			}
+			finishGuest();
+		}
+		finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Sends the number of lines read, counting a last line with no line ending
+	 * @return
+	 */
+	long getLineCount() {
+		return lineNumber;
+	}
+
+	/**
+	 * Sends the guest names, in the order they first appear
+	 * @return
+	 */
+	String[] getGuestNames() {
+		return guestNames.toArray(new String[guestNames.size()]);
+	}
+
+	/**
+	 * Sends where each guest's preferences start in getPreferenceItems, in the same order as the guest names,
+	 * followed by the total number of preferences
+	 * @return
+	 */
+	int[] getPreferenceStarts() {
+		int[] starts = new int[guestNames.size() + 1];
+		for (int guest = 0; guest < guestNames.size(); guest++) {
+			starts[guest + 1] = starts[guest] + guestRecordLength[guest];
+		}
+		return starts;
+	}
+
+	/**
+	 * Sends the item ids every guest prefers, one guest after another in the same order as the guest names
+	 * @return
+	 */
+	int[] getPreferenceItems() {
+		if (!guestRepeated) {
+			//Each guest has a single record, so the records are already in guest order
+			return Arrays.copyOf(records, recordsSize);
+		}
+		int[] items = new int[getPreferenceStarts()[guestNames.size()]];
+		int position = 0;
+		for (int guest = 0; guest < guestNames.size(); guest++) {
+			System.arraycopy(records, guestRecordStart[guest], items, position, guestRecordLength[guest]);
+			position += guestRecordLength[guest];
+		}
+		return items;
+	}
+
+	/**
+	 * Memory-maps large files and reads small ones into the heap, where mapping costs more than it saves
+	 */
+	private static ByteBuffer window(FileChannel channel, long size, long position, int length) throws IOException {
+		if (size >= MAP_THRESHOLD) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+			//Keeps reading until the buffer is full
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Handles every complete line in the window
+	 * @param window
+	 * @param lastWindow whether the window ends at the end of the file, which also ends the last line
+	 * @return the number of bytes up to the end of the last complete line
+	 */
+	private int readLines(ByteBuffer window, boolean lastWindow) {
+		int limit = window.limit();
+		int lineStart = 0;
+		for (int i = 0; i < limit; i++) {
+			byte next = window.get(i);
+			if (next == LINE_FEED || next == CARRIAGE_RETURN) {
+				if (next == CARRIAGE_RETURN) {
+					if (i + 1 == limit && !lastWindow) {
+						//The \n of a \r\n may be in the next window
+						return lineStart;
+					}
+					readLine(window, lineStart, i);
+					if (i + 1 < limit && window.get(i + 1) == LINE_FEED) {
+						i++;
+					}
+				}
+				else {
+					readLine(window, lineStart, i);
+				}
+				lineStart = i + 1;
+			}
+		}
+		if (lastWindow) {
+			if (lineStart < limit) {
+				readLine(window, lineStart, limit);
+			}
+			return limit;
+		}
+		return lineStart;
+	}
+
+	private void readLine(ByteBuffer window, int start, int end) {
+		int length = end - start;
+		if (length > line.length) {
+			line = new byte[Math.max(length, line.length * 2)];
+		}
+		window.position(start);
+		window.get(line, 0, length);
+		if (lineNumber % LINES_PER_GUEST == 0) {
+			startGuest(new String(line, 0, length, StandardCharsets.UTF_8));
+		}
+		else if (length > 0) {
+			readPreferences(length);
+		}
+		lineNumber++;
+	}
+
+	private void startGuest(String guestName) {
+		finishGuest();
+		Integer id = guestIds.get(guestName);
+		if (id == null) {
+			id = guestNames.size();
+			guestIds.put(guestName, id);
+			guestNames.add(guestName);
+			if (id == guestRecordStart.length) {
+				guestRecordStart = Arrays.copyOf(guestRecordStart, id * 2);
+				guestRecordLength = Arrays.copyOf(guestRecordLength, id * 2);
+			}
+		}
+		else {
+			guestRepeated = true;
+		}
+		currentGuest = id;
+		currentStart = recordsSize;
+	}
+
+	private void finishGuest() {
+		if (currentGuest != NO_GUEST) {
+			guestRecordStart[currentGuest] = currentStart;
+			guestRecordLength[currentGuest] = recordsSize - currentStart;
+		}
+	}
+
+	/**
+	 * Splits a preference line on ", " into item ids. Like String.split, empty names between separators are kept
+	 * and empty names at the end of the line are dropped
+	 */
+	private void readPreferences(int length) {
+		int emptyNames = 0;
+		int nameStart = 0;
+		for (int i = 0; i <= length; i++) {
+			boolean separator = i + 1 < length && line[i] == COMMA && line[i + 1] == SPACE;
+			if (separator || i == length) {
+				if (i == nameStart) {
+					emptyNames++;
+				}
+				else {
+					for (; emptyNames > 0; emptyNames--) {
+						addPreference(intern(nameStart, nameStart));
+					}
+					addPreference(intern(nameStart, i));
+				}
+				nameStart = i + 2;
+				i++;
+			}
+		}
+	}
+
+	private void addPreference(int itemId) {
+		if (currentGuest == NO_GUEST) {
+			return;
+		}
+		if (recordsSize == records.length) {
+			records = Arrays.copyOf(records, recordsSize * 2);
+		}
+		records[recordsSize++] = itemId;
+	}
+
+	/**
+	 * Finds the id of the item name in the line between start and end, giving it the next id if it has not been seen
+	 */
+	private int intern(int start, int end) {
+		int hash = hash(line, start, end);
+		int mask = itemSlots.length - 1;
+		for (int slot = hash & mask; itemSlots[slot] != 0; slot = (slot + 1) & mask) {
+			int id = itemSlots[slot] - 1;
+			if (itemHashes[id] == hash && sameBytes(itemBytes[id], start, end)) {
+				return id;
+			}
+		}
+		int id = itemNames.size();
+		itemNames.add(new String(line, start, end - start, StandardCharsets.UTF_8));
+		insert(id, Arrays.copyOfRange(line, start, end), hash);
+		return id;
+	}
+
+	private void insert(int id, byte[] name, int hash) {
+		if (id == itemBytes.length) {
+			itemBytes = Arrays.copyOf(itemBytes, id * 2);
+			itemHashes = Arrays.copyOf(itemHashes, id * 2);
+		}
+		itemBytes[id] = name;
+		itemHashes[id] = hash;
+		if ((id + 1) * 2 > itemSlots.length) {
+			itemSlots = new int[itemSlots.length * 2];
+			for (int i = 0; i < id; i++) {
+				place(i);
+			}
+		}
+		place(id);
+	}
+
+	private void place(int id) {
+		int mask = itemSlots.length - 1;
+		int slot = itemHashes[id] & mask;
+		while (itemSlots[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		itemSlots[slot] = id + 1;
+	}
+
+	private boolean sameBytes(byte[] name, int start, int end) {
+		if (name.length != end - start) {
+			return false;
+		}
+		for (int i = 0; i < name.length; i++) {
+			if (name[i] != line[start + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int hash(byte[] bytes, int start, int end) {
+		int hash = 1;
+		for (int i = start; i < end; i++) {
+			hash = 31 * hash + bytes[i];
+		}
+		//Spreads the high bits into the low bits used to pick a slot
+		return hash ^ (hash >>> 16);
+	}
+
+}
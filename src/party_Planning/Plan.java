@@ -0,0 +1,118 @@
+package party_Planning;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Immutable result of planning a party for one budget: the items to buy, what they cost,
+ * and the preferences that could not be afforded
+ * @author Samarth Desai
+ *
+ */
+public final class Plan {
+
+	private final double budget;
+	private final Map<String, Integer> itemsBought;
+	private final double amountSpent;
+	private final boolean complete;
+	/** Builds the remaining items on first use, and is let go once it has, along with the solve state it holds */
+	private Supplier<Map<String, List<String>>> remainingSupplier;
+	private volatile Map<String, List<String>> remainingItems;
+
+	/**
+	 * Creates a plan from its already computed parts
+	 * @param planBudget
+	 * @param bought
+	 * @param remaining
+	 * @param spent
+	 */
+	public Plan(double planBudget, Map<String, Integer> bought, Map<String, List<String>> remaining, double spent) {
+		this(planBudget, bought, remaining, spent, true);
+	}
+
+	/**
+	 * Creates a plan from its already computed parts, noting whether the engine finished its search
+	 * @param planBudget
+	 * @param bought
+	 * @param remaining
+	 * @param spent
+	 * @param searchComplete false if the engine stopped at a time limit and returned the best plan found so far
+	 */
+	public Plan(double planBudget, Map<String, Integer> bought, Map<String, List<String>> remaining, double spent, boolean searchComplete) {
+		budget = planBudget;
+		itemsBought = Collections.unmodifiableMap(bought);
+		remainingSupplier = null;
+		remainingItems = Collections.unmodifiableMap(remaining);
+		amountSpent = spent;
+		complete = searchComplete;
+	}
+
+	/**
+	 * Creates a plan whose remaining items are only built the first time they are asked for
+	 * @param planBudget
+	 * @param bought
+	 * @param remaining
+	 * @param spent
+	 */
+	Plan(double planBudget, Map<String, Integer> bought, Supplier<Map<String, List<String>>> remaining, double spent) {
+		budget = planBudget;
+		itemsBought = Collections.unmodifiableMap(bought);
+		remainingSupplier = remaining;
+		amountSpent = spent;
+		complete = true;
+	}
+
+	/**
+	 * Sends the budget this plan was made for
+	 * @return
+	 */
+	public double getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Sends map of each item to buy and the number of units to buy
+	 * @return
+	 */
+	public Map<String, Integer> getItemsBought() {
+		return itemsBought;
+	}
+
+	/**
+	 * Sends map of the remaining items that the user could not purchase
+	 * @return
+	 */
+	public Map<String, List<String>> getRemainingItems() {
+		Map<String, List<String>> remaining = remainingItems;
+		if (remaining == null) {
+			synchronized (this) {
+				remaining = remainingItems;
+				if (remaining == null) {
+					remaining = Collections.unmodifiableMap(remainingSupplier.get());
+					remainingItems = remaining;
+					remainingSupplier = null;
+				}
+			}
+		}
+		return remaining;
+	}
+
+	/**
+	 * Sends the total cost for the food and drink items that were selected
+	 * @return
+	 */
+	public double getAmountSpent() {
+		return amountSpent;
+	}
+
+	/**
+	 * Whether the engine finished its search, rather than stopping at its time limit with the best plan found so far
+	 * @return
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+}
@@ -0,0 +1,171 @@
+package party_Planning;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded least-recently-used cache of plans keyed by the catalog version and the budget in whole cents,
+ * so going back to a budget that was already planned does not run the selection again.
+ * Plans from an older catalog are never returned, since reloading the files gives the catalog a new version.
+ *
+ * The cache is bounded by both the number of plans and their estimated size in bytes, since a plan's remaining items
+ * grow with the guest list. A plan's remaining items are built before it is stored, so a cached plan only holds its maps
+ * and never the state of the solve that made it
+ * @author Samarth Desai
+ *
+ */
+public class PlanCache {
+
+	/** Rough size of a plan with no entries */
+	private static final long PLAN_BYTES = 128;
+	/** Rough size of one map entry with its key and list: the HashMap node, the ArrayList or Integer and its array */
+	private static final long ENTRY_BYTES = 96;
+	/** Each listed item is a reference to a name the catalog already holds */
+	private static final long REFERENCE_BYTES = 8;
+
+	private final int capacity;
+	private final long maxBytes;
+	private final LinkedHashMap<Key, Entry> plans = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+	private long bytes;
+
+	/**
+	 * Creates a cache that keeps at most the given number of plans, whatever their size
+	 * @param maxPlans
+	 */
+	public PlanCache(int maxPlans) {
+		this(maxPlans, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Creates a cache that keeps at most the given number of plans and estimated bytes
+	 * @param maxPlans
+	 * @param maxSize in bytes
+	 */
+	public PlanCache(int maxPlans, long maxSize) {
+
+		if (maxPlans < 1) {
+			throw new IllegalArgumentException("Plan cache needs room for at least one plan: " + maxPlans);
+		}
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("Plan cache needs a positive size: " + maxSize);
+		}
+		capacity = maxPlans;
+		maxBytes = maxSize;
+
+	}
+
+	/**
+	 * Sends the cached plan for the budget, or null if it has not been planned with this catalog
+	 * @param catalog
+	 * @param budget
+	 * @return
+	 */
+	public synchronized Plan get(PartyCatalog catalog, double budget) {
+		Entry entry = plans.get(new Key(catalog.getVersion(), PartyCatalog.budgetToCents(budget)));
+		return entry == null ? null : entry.plan;
+	}
+
+	/**
+	 * Remembers the plan for the budget, dropping the least recently used plans once the cache is full.
+	 * The plan's remaining items are built first if they have not been yet, and a plan larger than the whole cache is not kept
+	 * @param catalog
+	 * @param budget
+	 * @param plan
+	 */
+	public void put(PartyCatalog catalog, double budget, Plan plan) {
+		long planBytes = estimateBytes(plan);
+		synchronized (this) {
+			Entry replaced = plans.remove(new Key(catalog.getVersion(), PartyCatalog.budgetToCents(budget)));
+			if (replaced != null) {
+				bytes -= replaced.bytes;
+			}
+			if (planBytes > maxBytes) {
+				return;
+			}
+			plans.put(new Key(catalog.getVersion(), PartyCatalog.budgetToCents(budget)), new Entry(plan, planBytes));
+			bytes += planBytes;
+			Iterator<Entry> leastRecent = plans.values().iterator();
+			while (plans.size() > capacity || bytes > maxBytes) {
+				bytes -= leastRecent.next().bytes;
+				leastRecent.remove();
+			}
+		}
+	}
+
+	/**
+	 * Estimates the memory a plan holds once its remaining items are built
+	 * @param plan
+	 * @return
+	 */
+	private static long estimateBytes(Plan plan) {
+		Map<String, List<String>> remaining = plan.getRemainingItems();
+		long size = PLAN_BYTES + (plan.getItemsBought().size() + remaining.size()) * ENTRY_BYTES;
+		for (List<String> guestRemaining : remaining.values()) {
+			size += guestRemaining.size() * REFERENCE_BYTES;
+		}
+		return size;
+	}
+
+	/**
+	 * Sends the number of plans currently cached
+	 * @return
+	 */
+	public synchronized int size() {
+		return plans.size();
+	}
+
+	/**
+	 * Removes every cached plan
+	 */
+	public synchronized void clear() {
+		plans.clear();
+		bytes = 0;
+	}
+
+	/**
+	 * Sends the estimated size in bytes of the plans currently cached
+	 * @return
+	 */
+	public synchronized long getEstimatedBytes() {
+		return bytes;
+	}
+
+	private static final class Entry {
+
+		private final Plan plan;
+		private final long bytes;
+
+		private Entry(Plan cachedPlan, long planBytes) {
+			plan = cachedPlan;
+			bytes = planBytes;
+		}
+	}
+
+	private static final class Key {
+
+		private final long catalogVersion;
+		private final long budgetCents;
+
+		private Key(long version, long cents) {
+			catalogVersion = version;
+			budgetCents = cents;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) other;
+			return catalogVersion == key.catalogVersion && budgetCents == key.budgetCents;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * Long.hashCode(catalogVersion) + Long.hashCode(budgetCents);
+		}
+	}
+
+}
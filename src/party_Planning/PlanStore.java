@@ -0,0 +1,498 @@
+package party_Planning;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache of plans on disk that lasts across runs, so planning the same party with the same budget again reads the plan
+ * instead of solving it. Each plan is stored in its own file named by the SHA-256 of the drinks, food and people file contents,
+ * the engine and the budget, so a plan is found again wherever the files are and whenever they were written,
+ * and editing any file simply misses. Plans are written compressed, with every item and guest name stored once.
+ *
+ * Several processes can share one cache directory. Plans are written to a temporary file and moved into place,
+ * so a reader sees a whole plan or none, and a damaged file counts as a miss. Reading a plan marks it as used,
+ * and once the directory grows past its size limit the least recently used plans are deleted by whichever process
+ * holds the lock on the directory's lock file, so two processes never evict at once
+ * @author Samarth Desai
+ *
+ */
+public final class PlanStore {
+
+	private static final int MAGIC = 0x50504c4e;
+	private static final int FORMAT_VERSION = 2;
+	private static final String PLAN_EXTENSION = ".plan";
+	private static final String TEMPORARY_EXTENSION = ".tmp";
+	private static final String LOCK_FILE_NAME = ".lock";
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+	/** Eviction deletes down to this share of the size limit, so it does not run again on the next write */
+	private static final double EVICTION_TARGET = 0.9;
+	/** A temporary file this old was left by a process that stopped while writing */
+	private static final long ABANDONED_MILLIS = 60 * 60 * 1000;
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	private final File directory;
+	private final long maxBytes;
+	private final AtomicLong estimatedBytes = new AtomicLong();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong writes = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Opens the cache in the given directory, creating the directory if needed
+	 * @param cacheDirectory
+	 * @param maxCacheBytes total size of the plans kept, past which the least recently used are deleted
+	 */
+	public PlanStore(File cacheDirectory, long maxCacheBytes) {
+
+		if (maxCacheBytes < 1) {
+			throw new IllegalArgumentException("Plan store needs room for at least one byte: " + maxCacheBytes);
+		}
+		cacheDirectory.mkdirs();
+		if (!cacheDirectory.isDirectory()) {
+			throw new IllegalArgumentException("Cannot create plan cache directory: " + cacheDirectory);
+		}
+		directory = cacheDirectory;
+		maxBytes = maxCacheBytes;
+		long total = 0;
+		for (File plan : listPlans()) {
+			total += plan.length();
+		}
+		estimatedBytes.set(total);
+
+	}
+
+	/**
+	 * Plans each budget, reading the plans already in the cache and solving only the others, which are then stored.
+	 * The catalog is only asked for if a plan is missing, so a party whose plans are all cached is never parsed.
+	 * If a file cannot be read, or changes while it is parsed, every budget is solved and nothing is stored
+	 * @param algorithm
+	 * @param drinksFile
+	 * @param foodFile
+	 * @param peopleFile
+	 * @param budgets
+	 * @param catalog parses the three files
+	 * @return plans in the same order as the budgets
+	 */
+	public Plan[] planAll(SpendingAlgorithm algorithm, File drinksFile, File foodFile, File peopleFile, double[] budgets,
+			Supplier<PartyCatalog> catalog) {
+		File[] catalogFiles = {drinksFile, foodFile, peopleFile};
+		long[] sizes = new long[catalogFiles.length];
+		long[] modified = new long[catalogFiles.length];
+		for (int i = 0; i < catalogFiles.length; i++) {
+			sizes[i] = catalogFiles[i].length();
+			modified[i] = catalogFiles[i].lastModified();
+		}
+		byte[] catalogDigest;
+		try {
+			catalogDigest = digest(catalogFiles);
+		}
+		catch (IOException e) {
+			misses.addAndGet(budgets.length);
+			return algorithm.planAll(catalog.get(), budgets);
+		}
+
+		Plan[] plans = new Plan[budgets.length];
+		String[] keys = new String[budgets.length];
+		int missing = 0;
+		for (int i = 0; i < budgets.length; i++) {
+			keys[i] = key(catalogDigest, algorithm.getEngine(), budgets[i]);
+			plans[i] = get(keys[i]);
+			if (plans[i] == null) {
+				missing++;
+			}
+		}
+		if (missing == 0) {
+			return plans;
+		}
+
+		double[] missingBudgets = new double[missing];
+		int next = 0;
+		for (int i = 0; i < budgets.length; i++) {
+			if (plans[i] == null) {
+				missingBudgets[next++] = budgets[i];
+			}
+		}
+		PartyCatalog partyCatalog = catalog.get();
+		Plan[] solved = algorithm.planAll(partyCatalog, missingBudgets);
+		boolean unchanged = true;
+		for (int i = 0; i < catalogFiles.length; i++) {
+			//A file written after it was hashed may have been parsed with other contents than the key describes
+			unchanged &= partyCatalog.getFileSize(i) == sizes[i] && partyCatalog.getModifiedTime(i) == modified[i];
+		}
+		next = 0;
+		for (int i = 0; i < budgets.length; i++) {
+			if (plans[i] == null) {
+				plans[i] = solved[next++];
+				if (unchanged) {
+					put(keys[i], plans[i]);
+				}
+			}
+		}
+		return plans;
+	}
+
+	/**
+	 * Sends the stored plan for the key, marking it as recently used, or null if it is not stored
+	 * @param key
+	 * @return
+	 */
+	public Plan get(String key) {
+		File planFile = new File(directory, key + PLAN_EXTENSION);
+		if (!planFile.isFile()) {
+			misses.incrementAndGet();
+			return null;
+		}
+		try {
+			DataInputStream in = new DataInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(planFile))));
+			try {
+				Plan plan = readPlan(in);
+				planFile.setLastModified(System.currentTimeMillis());
+				hits.incrementAndGet();
+				return plan;
+			}
+			finally {
+				in.close();
+			}
+		}
+		catch (IOException e) {
+			//Deleted by another process's eviction, or damaged, so it is solved again
+			planFile.delete();
+		}
+		catch (RuntimeException e) {
+			planFile.delete();
+		}
+		misses.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Stores the plan under the key, evicting the least recently used plans if the cache has grown past its limit.
+	 * The cache only saves work, so a plan that cannot be written is skipped
+	 * @param key
+	 * @param plan
+	 */
+	public void put(String key, Plan plan) {
+		File temporary = null;
+		try {
+			temporary = File.createTempFile(key, TEMPORARY_EXTENSION, directory);
+			DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(temporary))));
+			try {
+				writePlan(out, plan);
+			}
+			finally {
+				out.close();
+			}
+			long length = temporary.length();
+			Files.move(temporary.toPath(), new File(directory, key + PLAN_EXTENSION).toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			writes.incrementAndGet();
+			if (estimatedBytes.addAndGet(length) > maxBytes) {
+				evict();
+			}
+		}
+		catch (IOException e) {
+			if (temporary != null) {
+				temporary.delete();
+			}
+		}
+	}
+
+	/**
+	 * Deletes the least recently used plans until the directory is back under its target size. If another process
+	 * is already evicting, this leaves it to that process
+	 */
+	private synchronized void evict() throws IOException {
+		FileChannel lockChannel = FileChannel.open(new File(directory, LOCK_FILE_NAME).toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE);
+		try {
+			FileLock lock = lockChannel.tryLock();
+			if (lock == null) {
+				return;
+			}
+			try {
+				deleteAbandoned();
+				File[] plans = listPlans();
+				final long[] used = new long[plans.length];
+				long total = 0;
+				Integer[] order = new Integer[plans.length];
+				for (int i = 0; i < plans.length; i++) {
+					used[i] = plans[i].lastModified();
+					total += plans[i].length();
+					order[i] = i;
+				}
+				Arrays.sort(order, new Comparator<Integer>() {
+					@Override
+					public int compare(Integer first, Integer second) {
+						return Long.compare(used[first], used[second]);
+					}
+				});
+				long target = (long) (maxBytes * EVICTION_TARGET);
+				for (int i = 0; i < order.length && total > target; i++) {
+					File plan = plans[order[i]];
+					long length = plan.length();
+					if (plan.delete()) {
+						total -= length;
+						evictions.incrementAndGet();
+					}
+				}
+				estimatedBytes.set(total);
+			}
+			finally {
+				lock.release();
+			}
+		}
+		finally {
+			lockChannel.close();
+		}
+	}
+
+	private void deleteAbandoned() {
+		File[] temporaries = directory.listFiles();
+		if (temporaries == null) {
+			return;
+		}
+		long abandoned = System.currentTimeMillis() - ABANDONED_MILLIS;
+		for (File temporary : temporaries) {
+			if (temporary.getName().endsWith(TEMPORARY_EXTENSION) && temporary.lastModified() < abandoned) {
+				temporary.delete();
+			}
+		}
+	}
+
+	private File[] listPlans() {
+		File[] plans = directory.listFiles();
+		if (plans == null) {
+			return new File[0];
+		}
+		List<File> planFiles = new ArrayList<File>();
+		for (File plan : plans) {
+			if (plan.getName().endsWith(PLAN_EXTENSION)) {
+				planFiles.add(plan);
+			}
+		}
+		return planFiles.toArray(new File[planFiles.size()]);
+	}
+
+	/**
+	 * Computes the SHA-256 of the contents of the files, each preceded by its length
+	 * @param files
+	 * @return
+	 * @throws IOException if a file cannot be read
+	 */
+	static byte[] digest(File[] files) throws IOException {
+		MessageDigest digest = newDigest();
+		ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+		for (File file : files) {
+			FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+			try {
+				digest.update(ByteBuffer.allocate(8).putLong(0, channel.size()));
+				while (channel.read(buffer) >= 0) {
+					buffer.flip();
+					digest.update(buffer);
+					buffer.clear();
+				}
+			}
+			finally {
+				channel.close();
+			}
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * Builds the key of a plan from the digest of its files, the engine and the budget. The budget is used exactly as given,
+	 * since the legacy engine compares prices against it without rounding to cents
+	 * @param catalogDigest
+	 * @param engine
+	 * @param budget
+	 * @return the key as hexadecimal, which is also the plan's file name
+	 */
+	static String key(byte[] catalogDigest, SpendingAlgorithm.Engine engine, double budget) {
+		MessageDigest digest = newDigest();
+		digest.update(ByteBuffer.allocate(4).putInt(0, FORMAT_VERSION));
+		digest.update(catalogDigest);
+		digest.update(engine.name().getBytes(StandardCharsets.UTF_8));
+		digest.update(ByteBuffer.allocate(8).putLong(0, Double.doubleToLongBits(budget)));
+		byte[] key = digest.digest();
+		char[] hex = new char[key.length * 2];
+		for (int i = 0; i < key.length; i++) {
+			hex[i * 2] = HEX_DIGITS[(key[i] >> 4) & 0xf];
+			hex[i * 2 + 1] = HEX_DIGITS[key[i] & 0xf];
+		}
+		return new String(hex);
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance(DIGEST_ALGORITHM);
+		}
+		catch (NoSuchAlgorithmException e) {
+			//Every Java platform is required to provide SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Writes the names used by the plan once, then the items bought and the remaining items as positions in those names,
+	 * each in the order the plan's maps iterate so they are read back in the same order
+	 */
+	private static void writePlan(DataOutputStream out, Plan plan) throws IOException {
+		Map<String, Integer> names = new HashMap<String, Integer>();
+		List<String> nameList = new ArrayList<String>();
+		Map<String, Integer> itemsBought = plan.getItemsBought();
+		Map<String, List<String>> remainingItems = plan.getRemainingItems();
+		for (String item : itemsBought.keySet()) {
+			addName(names, nameList, item);
+		}
+		for (Map.Entry<String, List<String>> guest : remainingItems.entrySet()) {
+			addName(names, nameList, guest.getKey());
+			for (String item : guest.getValue()) {
+				addName(names, nameList, item);
+			}
+		}
+
+		out.writeInt(MAGIC);
+		out.writeInt(FORMAT_VERSION);
+		out.writeDouble(plan.getBudget());
+		out.writeDouble(plan.getAmountSpent());
+		out.writeBoolean(plan.isComplete());
+		out.writeInt(nameList.size());
+		for (String name : nameList) {
+			byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+		out.writeInt(itemsBought.size());
+		for (Map.Entry<String, Integer> item : itemsBought.entrySet()) {
+			out.writeInt(names.get(item.getKey()));
+			out.writeInt(item.getValue());
+		}
+		out.writeInt(remainingItems.size());
+		for (Map.Entry<String, List<String>> guest : remainingItems.entrySet()) {
+			out.writeInt(names.get(guest.getKey()));
+			out.writeInt(guest.getValue().size());
+			for (String item : guest.getValue()) {
+				out.writeInt(names.get(item));
+			}
+		}
+	}
+
+	private static void addName(Map<String, Integer> names, List<String> nameList, String name) {
+		if (!names.containsKey(name)) {
+			names.put(name, nameList.size());
+			nameList.add(name);
+		}
+	}
+
+	private static Plan readPlan(DataInputStream in) throws IOException {
+		if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+			throw new IOException("Not a plan of this format");
+		}
+		double budget = in.readDouble();
+		double amountSpent = in.readDouble();
+		boolean complete = in.readBoolean();
+		String[] names = new String[in.readInt()];
+		for (int i = 0; i < names.length; i++) {
+			byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			names[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+		int itemCount = in.readInt();
+		Map<String, Integer> itemsBought = new LinkedHashMap<String, Integer>(itemCount * 2);
+		for (int i = 0; i < itemCount; i++) {
+			itemsBought.put(names[in.readInt()], in.readInt());
+		}
+		int guestCount = in.readInt();
+		Map<String, List<String>> remainingItems = new LinkedHashMap<String, List<String>>(guestCount * 2);
+		for (int i = 0; i < guestCount; i++) {
+			String guest = names[in.readInt()];
+			String[] items = new String[in.readInt()];
+			for (int j = 0; j < items.length; j++) {
+				items[j] = names[in.readInt()];
+			}
+			remainingItems.put(guest, Arrays.asList(items));
+		}
+		return new Plan(budget, itemsBought, remainingItems, amountSpent, complete);
+	}
+
+	/**
+	 * Sends the number of plans read from the cache
+	 * @return
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Sends the number of plans looked for and not found, which were solved instead
+	 * @return
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Sends the number of plans written to the cache
+	 * @return
+	 */
+	public long getWrites() {
+		return writes.get();
+	}
+
+	/**
+	 * Sends the number of plans deleted to keep the cache under its size limit
+	 * @return
+	 */
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * Sends the share of plans looked for that were found, from 0 to 1, or 0 before any were looked for
+	 * @return
+	 */
+	public double getHitRate() {
+		long found = hits.get();
+		long lookups = found + misses.get();
+		return lookups == 0 ? 0 : (double) found / lookups;
+	}
+
+	/**
+	 * Describes the hits, misses, writes and evictions so far in one line
+	 * @return
+	 */
+	public String summary() {
+		return String.format(Locale.ROOT, "Plan cache %s: %d hits, %d misses (%.1f%% hit rate), %d plans written, %d evicted",
+				directory, hits.get(), misses.get(), getHitRate() * 100, writes.get(), evictions.get());
+	}
+
+}
@@ -0,0 +1,186 @@
+package party_Planning;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes plans as JSON or CSV text for the command line planner and the planning server
+ * @author Samarth Desai
+ *
+ */
+final class PlanWriter {
+
+	static final String CSV_HEADER = "party,budget,amount_spent,kind,guest,item,units";
+	private static final String BOUGHT = "bought";
+	private static final String REMAINING = "remaining";
+	private static final String UNMET_TOTAL = "unmet_total";
+
+	private PlanWriter() {
+	}
+
+	/**
+	 * Writes a party's plans as one JSON object
+	 * @param party
+	 * @param plans
+	 * @return
+	 */
+	static String toJson(String party, Plan[] plans) {
+		StringBuilder json = new StringBuilder("{\"party\":");
+		appendString(json, party);
+		json.append(",\"plans\":");
+		appendPlans(json, plans);
+		return json.append('}').toString();
+	}
+
+	/**
+	 * Appends the plans as a JSON array
+	 * @param json
+	 * @param plans
+	 */
+	static void appendPlans(StringBuilder json, Plan[] plans) {
+		json.append('[');
+		for (int i = 0; i < plans.length; i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			appendPlan(json, plans[i]);
+		}
+		json.append(']');
+	}
+
+	/**
+	 * Appends one plan as a JSON object with its budget, amount spent, items bought and remaining items
+	 * @param json
+	 * @param plan
+	 */
+	static void appendPlan(StringBuilder json, Plan plan) {
+		json.append("{\"budget\":").append(formatBudget(plan.getBudget()));
+		json.append(",\"amountSpent\":").append(formatAmount(plan.getAmountSpent()));
+		json.append(",\"itemsBought\":{");
+		boolean first = true;
+		for (Map.Entry<String, Integer> item : plan.getItemsBought().entrySet()) {
+			if (!first) {
+				json.append(',');
+			}
+			first = false;
+			appendString(json, item.getKey());
+			json.append(':').append(item.getValue());
+		}
+		json.append("},\"remainingItems\":{");
+		first = true;
+		for (Map.Entry<String, List<String>> guest : plan.getRemainingItems().entrySet()) {
+			if (!first) {
+				json.append(',');
+			}
+			first = false;
+			appendString(json, guest.getKey());
+			json.append(":[");
+			for (int j = 0; j < guest.getValue().size(); j++) {
+				if (j > 0) {
+					json.append(',');
+				}
+				appendString(json, guest.getValue().get(j));
+			}
+			json.append(']');
+		}
+		json.append("}}");
+	}
+
+	/**
+	 * Writes a party's plans as CSV rows, one per item bought and one per remaining preference, without the header
+	 * @param party
+	 * @param plans
+	 * @return
+	 */
+	static String toCsv(String party, Plan[] plans) {
+		StringBuilder csv = new StringBuilder();
+		for (Plan plan : plans) {
+			String prefix = csvField(party) + ',' + formatBudget(plan.getBudget()) + ',' + formatAmount(plan.getAmountSpent()) + ',';
+			for (Map.Entry<String, Integer> item : plan.getItemsBought().entrySet()) {
+				csv.append(prefix).append(BOUGHT).append(",,").append(csvField(item.getKey())).append(',').append(item.getValue())
+					.append(System.lineSeparator());
+			}
+			for (Map.Entry<String, List<String>> guest : plan.getRemainingItems().entrySet()) {
+				for (String item : guest.getValue()) {
+					csv.append(prefix).append(REMAINING).append(',').append(csvField(guest.getKey())).append(',').append(csvField(item))
+						.append(',').append(System.lineSeparator());
+				}
+			}
+		}
+		return csv.toString();
+	}
+
+	/**
+	 * Writes the totals of a batch of parties as one JSON object with the amount spent and the unmet preferences for each budget
+	 * @param result
+	 * @return
+	 */
+	static String totalsToJson(PartyBatch.Result result) {
+		StringBuilder json = new StringBuilder("{\"totals\":[");
+		for (int i = 0; i < result.getBudgetCount(); i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			json.append("{\"budget\":").append(formatBudget(result.getBudget(i)));
+			json.append(",\"amountSpent\":").append(formatAmount(result.getTotalSpent(i)));
+			json.append(",\"unmetPreferences\":").append(result.getTotalUnmetPreferences(i)).append('}');
+		}
+		return json.append("]}").toString();
+	}
+
+	/**
+	 * Writes the totals of a batch of parties as CSV rows with no party, one per budget, with the unmet preferences as the units
+	 * @param result
+	 * @return
+	 */
+	static String totalsToCsv(PartyBatch.Result result) {
+		StringBuilder csv = new StringBuilder();
+		for (int i = 0; i < result.getBudgetCount(); i++) {
+			csv.append(',').append(formatBudget(result.getBudget(i))).append(',').append(formatAmount(result.getTotalSpent(i)))
+				.append(',').append(UNMET_TOTAL).append(",,,").append(result.getTotalUnmetPreferences(i)).append(System.lineSeparator());
+		}
+		return csv.toString();
+	}
+
+	/**
+	 * Appends a string as a quoted JSON string
+	 * @param json
+	 * @param value
+	 */
+	static void appendString(StringBuilder json, String value) {
+		json.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char character = value.charAt(i);
+			if (character == '"' || character == '\\') {
+				json.append('\\').append(character);
+			}
+			else if (character < ' ') {
+				json.append(String.format("\\u%04x", (int) character));
+			}
+			else {
+				json.append(character);
+			}
+		}
+		json.append('"');
+	}
+
+	/**
+	 * Writes a budget the way it is planned, in whole cents rounded down
+	 */
+	private static String formatBudget(double budget) {
+		return BigDecimal.valueOf(PartyCatalog.budgetToCents(budget), 2).toPlainString();
+	}
+
+	private static String formatAmount(double amount) {
+		return BigDecimal.valueOf(Math.round(amount * 100), 2).toPlainString();
+	}
+
+	private static String csvField(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+}
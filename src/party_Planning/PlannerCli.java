@@ -0,0 +1,386 @@
+package party_Planning;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Headless entry point that plans parties from the command line and writes the plans to stdout as JSON or CSV,
+ * for cron jobs and servers without a display. It never touches JavaFX, so the toolkit is not started.
+ *
+ * A batch directory plans every subdirectory holding a people.txt as its own party, in parallel across the available cores,
+ * and writes the results in the order of the subdirectory names. A guest list directory plans every .txt file in it
+ * against one shared food and drink catalog on a ForkJoinPool, and ends with the totals across all parties
+ * @author Samarth Desai
+ *
+ */
+public class PlannerCli {
+
+	private static final String USAGE = String.join(System.lineSeparator(),
+			"Usage: java -cp <classes> party_Planning.PlannerCli [options] <budget>...",
+			"",
+			"Options:",
+			"  --dir <directory>     directory holding people.txt, food.txt and drinks.txt (default " + PartyCatalog.FILE_PATH + ")",
+			"  --people <file>       guest preferences file, overriding the one in --dir",
+			"  --food <file>         food price file, overriding the one in --dir",
+			"  --drinks <file>       drink price file, overriding the one in --dir",
+			"  --batch <directory>   plan every subdirectory that holds a people.txt, in parallel",
+			"  --guests <directory>  plan every .txt guest list in the directory with the food and drinks of --dir, in parallel",
+			"  --threads <count>     number of parties planned at once in batch mode (default: number of cores)",
+			"  --engine <name>       legacy, indexed or exact (default indexed)",
+			"  --format <format>     json, one object per party per line, or csv (default json)",
+			"  --cache <directory>   keep plans in the directory and reuse them when the same files and budget are planned again",
+			"  --cache-size <MB>     size of the plan cache, past which the least recently used plans are deleted (default "
+					+ PlannerCli.DEFAULT_CACHE_MEGABYTES + ")",
+			"  --metrics             write the time, allocation and work of each planning phase to stderr",
+			"  --help                show this message");
+	private static final String FORMAT_JSON = "json";
+	private static final String FORMAT_CSV = "csv";
+	private static final String GUEST_LIST_EXTENSION = ".txt";
+	private static final int EXIT_FAILURE = 1;
+	private static final int EXIT_USAGE = 2;
+	private static final long DEFAULT_CACHE_MEGABYTES = 64;
+	private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+
+	private File directory = new File(PartyCatalog.FILE_PATH);
+	private File peopleFile;
+	private File foodFile;
+	private File drinksFile;
+	private File batchDirectory;
+	private File guestsDirectory;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private SpendingAlgorithm.Engine engine = SpendingAlgorithm.Engine.INDEXED;
+	private SpendingAlgorithm spendingAlgorithm;
+	private String format = FORMAT_JSON;
+	private boolean metrics;
+	private File cacheDirectory;
+	private long cacheMegabytes = DEFAULT_CACHE_MEGABYTES;
+	private PlanStore planStore;
+	private double[] budgets;
+
+	public static void main(String[] args) {
+		PlannerCli cli = new PlannerCli();
+		try {
+			cli.parseArguments(args);
+		}
+		catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(EXIT_USAGE);
+		}
+		if (cli.budgets == null) {
+			System.out.println(USAGE);
+			return;
+		}
+		int exitCode = cli.run(System.out);
+		if (cli.metrics) {
+			System.err.print(PlannerMetrics.summary());
+		}
+		if (cli.planStore != null) {
+			System.err.println(cli.planStore.summary());
+		}
+		System.exit(exitCode);
+	}
+
+	/**
+	 * Reads the options and budgets from the command line
+	 * @param args
+	 */
+	private void parseArguments(String[] args) {
+		List<Double> budgetList = new ArrayList<Double>();
+		for (int i = 0; i < args.length; i++) {
+			String argument = args[i];
+			if (argument.equals("--help")) {
+				budgetList.clear();
+				budgets = null;
+				return;
+			}
+			else if (argument.equals("--metrics")) {
+				metrics = true;
+			}
+			else if (argument.startsWith("--")) {
+				if (i + 1 == args.length) {
+					throw new IllegalArgumentException("Missing value for " + argument);
+				}
+				setOption(argument, args[++i]);
+			}
+			else {
+				budgetList.add(parseBudget(argument));
+			}
+		}
+		if (budgetList.isEmpty()) {
+			throw new IllegalArgumentException("At least one budget is needed");
+		}
+		budgets = new double[budgetList.size()];
+		for (int i = 0; i < budgets.length; i++) {
+			budgets[i] = budgetList.get(i);
+		}
+	}
+
+	private void setOption(String option, String value) {
+		if (option.equals("--dir")) {
+			directory = new File(value);
+		}
+		else if (option.equals("--people")) {
+			peopleFile = new File(value);
+		}
+		else if (option.equals("--food")) {
+			foodFile = new File(value);
+		}
+		else if (option.equals("--drinks")) {
+			drinksFile = new File(value);
+		}
+		else if (option.equals("--batch")) {
+			batchDirectory = new File(value);
+		}
+		else if (option.equals("--guests")) {
+			guestsDirectory = new File(value);
+		}
+		else if (option.equals("--cache")) {
+			cacheDirectory = new File(value);
+		}
+		else if (option.equals("--cache-size")) {
+			try {
+				cacheMegabytes = Long.parseLong(value);
+			}
+			catch (NumberFormatException e) {
+				cacheMegabytes = 0;
+			}
+			if (cacheMegabytes < 1) {
+				throw new IllegalArgumentException("Cache size must be a positive whole number of megabytes: " + value);
+			}
+		}
+		else if (option.equals("--threads")) {
+			try {
+				threads = Integer.parseInt(value);
+			}
+			catch (NumberFormatException e) {
+				threads = 0;
+			}
+			if (threads < 1) {
+				throw new IllegalArgumentException("Thread count must be a positive whole number: " + value);
+			}
+		}
+		else if (option.equals("--engine")) {
+			try {
+				engine = SpendingAlgorithm.Engine.valueOf(value.toUpperCase(Locale.ROOT));
+			}
+			catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Unknown engine: " + value);
+			}
+		}
+		else if (option.equals("--format")) {
+			format = value.toLowerCase(Locale.ROOT);
+			if (!format.equals(FORMAT_JSON) && !format.equals(FORMAT_CSV)) {
+				throw new IllegalArgumentException("Unknown format: " + value);
+			}
+		}
+		else {
+			throw new IllegalArgumentException("Unknown option: " + option);
+		}
+	}
+
+	/**
+	 * Parses a budget such as 150, 150.25 or 1,500.00
+	 */
+	private static double parseBudget(String budget) {
+		try {
+			BigDecimal amount = new BigDecimal(budget.replace(",", ""));
+			if (amount.signum() < 0) {
+				throw new IllegalArgumentException("Budget cannot be negative: " + budget);
+			}
+			return amount.doubleValue();
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid budget: " + budget);
+		}
+	}
+
+	/**
+	 * Plans the single party or the whole batch and writes the results
+	 * @param out
+	 * @return the process exit code
+	 */
+	private int run(PrintStream out) {
+		if (metrics) {
+			PlannerMetrics.setEnabled(true);
+		}
+		//One algorithm is shared by every party, since it keeps no state between solves
+		spendingAlgorithm = new SpendingAlgorithm(engine);
+		if (cacheDirectory != null) {
+			try {
+				planStore = new PlanStore(cacheDirectory, cacheMegabytes * BYTES_PER_MEGABYTE);
+			}
+			catch (IllegalArgumentException e) {
+				System.err.println(e.getMessage());
+				return EXIT_FAILURE;
+			}
+		}
+		if (format.equals(FORMAT_CSV)) {
+			out.println(PlanWriter.CSV_HEADER);
+		}
+		if (guestsDirectory != null) {
+			return runGuestLists(out);
+		}
+		if (batchDirectory == null) {
+			final File people = peopleFile != null ? peopleFile : new File(directory, PartyCatalog.PEOPLE_FILE_NAME);
+			out.print(planParty(directory.getName(), drinksFile(), foodFile(), people, new Supplier<PartyCatalog>() {
+				@Override
+				public PartyCatalog get() {
+					return loadCatalog(people);
+				}
+			}));
+			out.flush();
+			return 0;
+		}
+		return runBatch(out);
+	}
+
+	/**
+	 * Parses the food and drink files chosen on the command line with the given guest list
+	 */
+	private PartyCatalog loadCatalog(File people) {
+		if (drinksFile == null && foodFile == null && people.equals(new File(directory, PartyCatalog.PEOPLE_FILE_NAME))) {
+			//The directory's own files can be read from its snapshot
+			return PartyCatalog.load(directory);
+		}
+		return PartyCatalog.load(drinksFile(), foodFile(), people);
+	}
+
+	private File drinksFile() {
+		return drinksFile != null ? drinksFile : new File(directory, PartyCatalog.DRINKS_FILE_NAME);
+	}
+
+	private File foodFile() {
+		return foodFile != null ? foodFile : new File(directory, PartyCatalog.FOOD_FILE_NAME);
+	}
+
+	/**
+	 * Plans every guest list in the directory with the shared food and drinks, which are parsed once on their own,
+	 * then writes each party and the totals
+	 */
+	private int runGuestLists(PrintStream out) {
+		File[] guestLists = guestsDirectory.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File guestList) {
+				return guestList.isFile() && guestList.getName().endsWith(GUEST_LIST_EXTENSION);
+			}
+		});
+		if (guestLists == null || guestLists.length == 0) {
+			System.err.println("No guest lists in " + guestsDirectory);
+			return EXIT_FAILURE;
+		}
+		sortByName(guestLists);
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			PartyBatch batch = new PartyBatch(PartyCatalog.loadPrices(drinksFile(), foodFile()), spendingAlgorithm, pool, planStore);
+			PartyBatch.Result result = batch.plan(Arrays.asList(guestLists), budgets);
+			for (PartyBatch.PartyResult party : result.getParties()) {
+				String name = party.getGuestList().getName();
+				name = name.substring(0, name.length() - GUEST_LIST_EXTENSION.length());
+				out.print(format.equals(FORMAT_CSV) ? PlanWriter.toCsv(name, party.getPlans())
+						: PlanWriter.toJson(name, party.getPlans()) + System.lineSeparator());
+			}
+			out.print(format.equals(FORMAT_CSV) ? PlanWriter.totalsToCsv(result) : PlanWriter.totalsToJson(result) + System.lineSeparator());
+			out.flush();
+		}
+		finally {
+			pool.shutdownNow();
+		}
+		return 0;
+	}
+
+	/**
+	 * Plans every party directory in the batch on a fixed pool of threads. A party that fails is reported
+	 * on stderr and the others are still written
+	 */
+	private int runBatch(PrintStream out) {
+		File[] parties = batchDirectory.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File party) {
+				return party.isDirectory() && new File(party, PartyCatalog.PEOPLE_FILE_NAME).isFile();
+			}
+		});
+		if (parties == null) {
+			System.err.println("Not a directory: " + batchDirectory);
+			return EXIT_FAILURE;
+		}
+		sortByName(parties);
+
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, parties.length)));
+		int exitCode = 0;
+		try {
+			List<Future<String>> results = new ArrayList<Future<String>>();
+			for (final File party : parties) {
+				results.add(pool.submit(new Callable<String>() {
+					@Override
+					public String call() {
+						return planParty(party.getName(), new File(party, PartyCatalog.DRINKS_FILE_NAME),
+								new File(party, PartyCatalog.FOOD_FILE_NAME), new File(party, PartyCatalog.PEOPLE_FILE_NAME),
+								new Supplier<PartyCatalog>() {
+									@Override
+									public PartyCatalog get() {
+										return PartyCatalog.load(party);
+									}
+								});
+					}
+				}));
+			}
+			for (int i = 0; i < parties.length; i++) {
+				try {
+					out.print(results.get(i).get());
+				}
+				catch (ExecutionException e) {
+					System.err.println("Could not plan " + parties[i] + ": " + e.getCause());
+					exitCode = EXIT_FAILURE;
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return EXIT_FAILURE;
+				}
+			}
+			out.flush();
+		}
+		finally {
+			pool.shutdownNow();
+		}
+		return exitCode;
+	}
+
+	private static void sortByName(File[] files) {
+		Arrays.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(File first, File second) {
+				return first.getName().compareTo(second.getName());
+			}
+		});
+	}
+
+	/**
+	 * Plans every budget for one party, through the plan cache if there is one
+	 * @return the party's output in the chosen format
+	 */
+	private String planParty(String party, File drinks, File food, File people, Supplier<PartyCatalog> catalog) {
+		Plan[] plans = planStore != null ? planStore.planAll(spendingAlgorithm, drinks, food, people, budgets, catalog)
+				: spendingAlgorithm.planAll(catalog.get(), budgets);
+		if (format.equals(FORMAT_CSV)) {
+			return PlanWriter.toCsv(party, plans);
+		}
+		return PlanWriter.toJson(party, plans) + System.lineSeparator();
+	}
+
+}
@@ -0,0 +1,379 @@
+package party_Planning;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Timers and counters for the planning pipeline, from reading the files to filling the lists on screen.
+ * Each phase records how often it ran, the total and longest time it took, and the bytes the running thread allocated
+ * during it. Solves of the greedy engines also count the rounds of the selection loop, the price comparisons made to find the cheapest item,
+ * the units bought and the guests whose preferences were all fulfilled.
+ *
+ * The window also records three startup times once: when the planner was ready, when the first plan was shown,
+ * and how long that first plan took after its budget was entered.
+ *
+ * Metrics are off unless the party_Planning.metrics property is true or they are turned on through setEnabled or JMX.
+ * While off, a phase costs one read of a volatile flag and nothing is recorded or allocated, apart from the startup times.
+ * The totals can be read under the MBean name party_Planning:type=PlannerMetrics, see PlannerMetricsMXBean
+ * @author Samarth Desai
+ *
+ */
+public final class PlannerMetrics {
+
+	public static final String OBJECT_NAME = "party_Planning:type=PlannerMetrics";
+
+	/**
+	 * Parts of the pipeline that are timed
+	 */
+	public enum Phase {
+		/** Parsing food.txt, drinks.txt and people.txt */
+		CATALOG_PARSE,
+		/** Reading a catalog from its binary snapshot */
+		SNAPSHOT_READ,
+		/** Building the inverted index of who prefers each item */
+		INDEX_BUILD,
+		/** The selection loop of any engine */
+		SELECTION,
+		/** Collecting the preferences a plan could not afford */
+		REMAINING_ITEMS,
+		/** Building the rows of the two lists in the window */
+		UI_LISTS
+	}
+
+	private static volatile boolean enabled = Boolean.getBoolean("party_Planning.metrics");
+	private static boolean registered;
+
+	private static final Phase[] PHASES = Phase.values();
+	private static final LongAdder[] PHASE_COUNTS = new LongAdder[PHASES.length];
+	private static final LongAdder[] PHASE_NANOS = new LongAdder[PHASES.length];
+	private static final AtomicLong[] PHASE_MAX_NANOS = new AtomicLong[PHASES.length];
+	private static final LongAdder[] PHASE_ALLOCATED_BYTES = new LongAdder[PHASES.length];
+	private static final LongAdder SOLVES = new LongAdder();
+	private static final LongAdder ROUNDS = new LongAdder();
+	private static final LongAdder COMPARISONS = new LongAdder();
+	private static final LongAdder UNITS_BOUGHT = new LongAdder();
+	private static final LongAdder GUESTS_SATISFIED = new LongAdder();
+	private static final long NOT_RECORDED = -1;
+	private static volatile long startupNanos = NOT_RECORDED;
+	private static volatile long readyNanos = NOT_RECORDED;
+	private static volatile long firstPlanNanos = NOT_RECORDED;
+	private static volatile long firstPlanLatencyNanos = NOT_RECORDED;
+
+	static {
+		for (int i = 0; i < PHASES.length; i++) {
+			PHASE_COUNTS[i] = new LongAdder();
+			PHASE_NANOS[i] = new LongAdder();
+			PHASE_MAX_NANOS[i] = new AtomicLong();
+			PHASE_ALLOCATED_BYTES[i] = new LongAdder();
+		}
+		if (enabled) {
+			register();
+		}
+	}
+
+	private PlannerMetrics() {
+	}
+
+	/**
+	 * Starts timing a phase on the current thread
+	 * @param phase
+	 * @return the running timer to pass to stop, or null while metrics are off
+	 */
+	public static Timer start(Phase phase) {
+		if (!enabled) {
+			return null;
+		}
+		return new Timer(phase, Allocations.allocatedBytes(), System.nanoTime());
+	}
+
+	/**
+	 * Records the time and allocation of a phase started on the same thread
+	 * @param timer the timer from start, which may be null
+	 */
+	public static void stop(Timer timer) {
+		if (timer == null) {
+			return;
+		}
+		long nanos = System.nanoTime() - timer.startNanos;
+		long allocated = Allocations.allocatedBytes();
+		int phase = timer.phase.ordinal();
+		PHASE_COUNTS[phase].increment();
+		PHASE_NANOS[phase].add(nanos);
+		AtomicLong max = PHASE_MAX_NANOS[phase];
+		for (long longest = max.get(); nanos > longest && !max.compareAndSet(longest, nanos); longest = max.get()) {
+			//Retries until this time is stored or a longer one is
+		}
+		if (allocated >= 0 && timer.startBytes >= 0) {
+			PHASE_ALLOCATED_BYTES[phase].add(allocated - timer.startBytes);
+		}
+	}
+
+	/**
+	 * Records the work of one solve. Engines count in local variables and report once at the end
+	 * @param solveRounds items taken as the cheapest
+	 * @param priceComparisons comparisons made to find the cheapest items
+	 * @param units units bought
+	 * @param satisfiedGuests guests whose every preference was bought
+	 */
+	public static void recordSolve(long solveRounds, long priceComparisons, long units, long satisfiedGuests) {
+		if (!enabled) {
+			return;
+		}
+		SOLVES.increment();
+		ROUNDS.add(solveRounds);
+		COMPARISONS.add(priceComparisons);
+		UNITS_BOUGHT.add(units);
+		GUESTS_SATISFIED.add(satisfiedGuests);
+	}
+
+	/**
+	 * Marks the moment the application started, from which the other startup times are measured
+	 */
+	public static synchronized void markStartup() {
+		if (startupNanos == NOT_RECORDED) {
+			startupNanos = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Records that the catalog is loaded and the planner warmed up, the first time it happens
+	 */
+	public static synchronized void recordPlannerReady() {
+		if (startupNanos != NOT_RECORDED && readyNanos == NOT_RECORDED) {
+			readyNanos = System.nanoTime() - startupNanos;
+		}
+	}
+
+	/**
+	 * Records that the first plan was shown, the first time it happens
+	 * @param latencyNanos time from entering the budget to showing its plan
+	 */
+	public static synchronized void recordFirstPlan(long latencyNanos) {
+		if (startupNanos != NOT_RECORDED && firstPlanNanos == NOT_RECORDED) {
+			firstPlanNanos = System.nanoTime() - startupNanos;
+			firstPlanLatencyNanos = latencyNanos;
+		}
+	}
+
+	/**
+	 * Whether metrics are being recorded
+	 * @return
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Turns recording on or off, registering the MBean the first time it is turned on
+	 * @param record
+	 */
+	public static void setEnabled(boolean record) {
+		if (record) {
+			register();
+		}
+		enabled = record;
+	}
+
+	/**
+	 * Registers the MBean with the platform MBean server so the metrics can be read and turned on over JMX
+	 */
+	public static synchronized void register() {
+		if (registered) {
+			return;
+		}
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName(OBJECT_NAME));
+			registered = true;
+		}
+		catch (JMException e) {
+			System.err.println("Could not register the planner metrics: " + e);
+		}
+	}
+
+	/**
+	 * Clears every timer and counter. The startup times are kept, since they can only happen once
+	 */
+	public static void reset() {
+		for (int i = 0; i < PHASES.length; i++) {
+			PHASE_COUNTS[i].reset();
+			PHASE_NANOS[i].reset();
+			PHASE_MAX_NANOS[i].set(0);
+			PHASE_ALLOCATED_BYTES[i].reset();
+		}
+		SOLVES.reset();
+		ROUNDS.reset();
+		COMPARISONS.reset();
+		UNITS_BOUGHT.reset();
+		GUESTS_SATISFIED.reset();
+	}
+
+	/**
+	 * Writes every phase and counter as text, one per line
+	 * @return
+	 */
+	public static String summary() {
+		StringBuilder summary = new StringBuilder();
+		for (int i = 0; i < PHASES.length; i++) {
+			long count = PHASE_COUNTS[i].sum();
+			if (count == 0) {
+				continue;
+			}
+			summary.append(String.format("%-16s %8d runs %12.3f ms total %10.3f ms max %14d bytes allocated%n", PHASES[i], count,
+					PHASE_NANOS[i].sum() / 1e6, PHASE_MAX_NANOS[i].get() / 1e6, PHASE_ALLOCATED_BYTES[i].sum()));
+		}
+		summary.append(String.format("solves %d, rounds %d, price comparisons %d, units bought %d, guests satisfied %d%n",
+				SOLVES.sum(), ROUNDS.sum(), COMPARISONS.sum(), UNITS_BOUGHT.sum(), GUESTS_SATISFIED.sum()));
+		if (readyNanos != NOT_RECORDED) {
+			summary.append(String.format("planner ready %.3f ms after start%n", readyNanos / 1e6));
+		}
+		if (firstPlanNanos != NOT_RECORDED) {
+			summary.append(String.format("first plan shown %.3f ms after start, %.3f ms after its budget was entered%n",
+					firstPlanNanos / 1e6, firstPlanLatencyNanos / 1e6));
+		}
+		return summary.toString();
+	}
+
+	private static Map<String, Long> byPhase(LongAdder[] values) {
+		Map<String, Long> byPhase = new LinkedHashMap<String, Long>();
+		for (int i = 0; i < PHASES.length; i++) {
+			byPhase.put(PHASES[i].name(), values[i].sum());
+		}
+		return byPhase;
+	}
+
+	/**
+	 * A phase being timed, with the clock and the thread's allocated bytes when it started
+	 */
+	public static final class Timer {
+
+		private final Phase phase;
+		private final long startBytes;
+		private final long startNanos;
+
+		private Timer(Phase timedPhase, long bytes, long nanos) {
+			phase = timedPhase;
+			startBytes = bytes;
+			startNanos = nanos;
+		}
+	}
+
+	/**
+	 * Reads the bytes allocated by the current thread, on JVMs that count them. Kept in its own class so the
+	 * management classes are only loaded once metrics are turned on
+	 */
+	private static final class Allocations {
+
+		private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+		private static com.sun.management.ThreadMXBean threads() {
+			ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+			if (threads instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+				if (allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled()) {
+					return allocations;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * @return the bytes allocated so far by the current thread, or -1 if the JVM does not count them
+		 */
+		private static long allocatedBytes() {
+			return THREADS == null ? -1 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+	}
+
+	/**
+	 * The MXBean registered with the platform MBean server
+	 */
+	private static final class Bean implements PlannerMetricsMXBean {
+
+		@Override
+		public boolean isEnabled() {
+			return PlannerMetrics.isEnabled();
+		}
+
+		@Override
+		public void setEnabled(boolean record) {
+			PlannerMetrics.setEnabled(record);
+		}
+
+		@Override
+		public Map<String, Long> getPhaseCounts() {
+			return byPhase(PHASE_COUNTS);
+		}
+
+		@Override
+		public Map<String, Long> getPhaseNanos() {
+			return byPhase(PHASE_NANOS);
+		}
+
+		@Override
+		public Map<String, Long> getPhaseMaxNanos() {
+			Map<String, Long> byPhase = new LinkedHashMap<String, Long>();
+			for (int i = 0; i < PHASES.length; i++) {
+				byPhase.put(PHASES[i].name(), PHASE_MAX_NANOS[i].get());
+			}
+			return byPhase;
+		}
+
+		@Override
+		public Map<String, Long> getPhaseAllocatedBytes() {
+			return byPhase(PHASE_ALLOCATED_BYTES);
+		}
+
+		@Override
+		public long getSolves() {
+			return SOLVES.sum();
+		}
+
+		@Override
+		public long getRounds() {
+			return ROUNDS.sum();
+		}
+
+		@Override
+		public long getPriceComparisons() {
+			return COMPARISONS.sum();
+		}
+
+		@Override
+		public long getUnitsBought() {
+			return UNITS_BOUGHT.sum();
+		}
+
+		@Override
+		public long getGuestsSatisfied() {
+			return GUESTS_SATISFIED.sum();
+		}
+
+		@Override
+		public long getPlannerReadyNanos() {
+			return readyNanos;
+		}
+
+		@Override
+		public long getTimeToFirstPlanNanos() {
+			return firstPlanNanos;
+		}
+
+		@Override
+		public long getFirstPlanLatencyNanos() {
+			return firstPlanLatencyNanos;
+		}
+
+		@Override
+		public void reset() {
+			PlannerMetrics.reset();
+		}
+	}
+
+}
@@ -0,0 +1,51 @@
+package party_Planning;
+
+import java.util.Map;
+
+/**
+ * Management interface of PlannerMetrics, registered as party_Planning:type=PlannerMetrics.
+ * Maps are keyed by the PlannerMetrics.Phase names and are shown as tables in JMX clients such as JConsole
+ * @author Samarth Desai
+ *
+ */
+public interface PlannerMetricsMXBean {
+
+	boolean isEnabled();
+
+	void setEnabled(boolean record);
+
+	/** Number of times each phase ran */
+	Map<String, Long> getPhaseCounts();
+
+	/** Total nanoseconds spent in each phase */
+	Map<String, Long> getPhaseNanos();
+
+	/** Longest single run of each phase in nanoseconds */
+	Map<String, Long> getPhaseMaxNanos();
+
+	/** Bytes allocated by the threads running each phase */
+	Map<String, Long> getPhaseAllocatedBytes();
+
+	long getSolves();
+
+	long getRounds();
+
+	long getPriceComparisons();
+
+	long getUnitsBought();
+
+	long getGuestsSatisfied();
+
+	/** Nanoseconds from the start of the window until the catalog was loaded and the planner warmed up, or -1 */
+	long getPlannerReadyNanos();
+
+	/** Nanoseconds from the start of the window until the first plan was shown, or -1 */
+	long getTimeToFirstPlanNanos();
+
+	/** Nanoseconds from entering the first budget until its plan was shown, or -1 */
+	long getFirstPlanLatencyNanos();
+
+	/** Clears every timer and counter */
+	void reset();
+
+}
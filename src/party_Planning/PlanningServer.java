@@ -0,0 +1,273 @@
+package party_Planning;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Small embedded HTTP server that plans budgets for other tools, using the JDK's built-in HttpServer.
+ *
+ * POST /plan takes one budget and POST /sweep takes several, as form parameters in the body or the query string:
+ * budget=25.50 (repeated for /sweep) and an optional engine=legacy, indexed or exact. Both answer with JSON.
+ *
+ * Requests read the parsed files from an immutable PartyCatalog held by a CatalogWatcher, so they never touch the disk
+ * or take a lock. When a file changes the watcher parses it and swaps in the new catalog in one step,
+ * so a request sees either the old catalog or the new one, never a mix
+ * @author Samarth Desai
+ *
+ */
+public class PlanningServer {
+
+	private static final int DEFAULT_PORT = 8080;
+	private static final int MAX_BODY_BYTES = 64 * 1024;
+	private static final String PLAN_PATH = "/plan";
+	private static final String SWEEP_PATH = "/sweep";
+	private static final String POST = "POST";
+	private static final String BUDGET_PARAMETER = "budget";
+	private static final String ENGINE_PARAMETER = "engine";
+	private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+	private static final String CATALOG_VERSION_HEADER = "X-Catalog-Version";
+	private static final int OK = 200;
+	private static final int BAD_REQUEST = 400;
+	private static final int NOT_FOUND = 404;
+	private static final int METHOD_NOT_ALLOWED = 405;
+	private static final int PAYLOAD_TOO_LARGE = 413;
+	private static final int SERVER_ERROR = 500;
+
+	private final CatalogWatcher catalogWatcher;
+	private final HttpServer server;
+	private final ExecutorService requestThreads;
+
+	/**
+	 * Parses the files, starts watching them and sets up the server on the given port, without starting it
+	 * @param port
+	 * @param catalogDirectory
+	 * @param threads number of requests handled at once
+	 * @throws IOException if the port cannot be bound
+	 */
+	public PlanningServer(int port, File catalogDirectory, int threads) throws IOException {
+
+		catalogWatcher = new CatalogWatcher(PartyCatalog.load(catalogDirectory));
+		server = HttpServer.create(new InetSocketAddress(port), 0);
+		server.createContext(PLAN_PATH, new PlanningHandler(false));
+		server.createContext(SWEEP_PATH, new PlanningHandler(true));
+		requestThreads = Executors.newFixedThreadPool(threads);
+		server.setExecutor(requestThreads);
+
+	}
+
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		File directory = new File(args.length > 1 ? args[1] : PartyCatalog.FILE_PATH);
+		int threads = Runtime.getRuntime().availableProcessors() * 2;
+		final PlanningServer planningServer = new PlanningServer(port, directory, threads);
+		//Metrics stay off until turned on over JMX or with -Dparty_Planning.metrics=true
+		PlannerMetrics.register();
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			@Override
+			public void run() {
+				planningServer.stop();
+			}
+		});
+		planningServer.start();
+		System.out.println("Planning server listening on port " + port);
+	}
+
+	/**
+	 * Starts answering requests
+	 */
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * Stops the server, letting requests in progress finish for up to a second
+	 */
+	public void stop() {
+		catalogWatcher.close();
+		server.stop(1);
+		requestThreads.shutdown();
+	}
+
+	/**
+	 * Parses the files again if they changed on disk and swaps the new catalog in for every later request
+	 */
+	public void reload() {
+		catalogWatcher.reload();
+	}
+
+	/**
+	 * Sends the catalog that requests are currently planned with
+	 * @return
+	 */
+	public PartyCatalog getCatalog() {
+		return catalogWatcher.getCatalog();
+	}
+
+	/**
+	 * Answers /plan with a single plan and /sweep with an array of plans
+	 */
+	private class PlanningHandler implements HttpHandler {
+
+		private final boolean sweep;
+
+		private PlanningHandler(boolean manyBudgets) {
+			sweep = manyBudgets;
+		}
+
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			try {
+				if (!exchange.getRequestURI().getPath().equals(sweep ? SWEEP_PATH : PLAN_PATH)) {
+					sendError(exchange, NOT_FOUND, "Not found");
+					return;
+				}
+				if (!exchange.getRequestMethod().equalsIgnoreCase(POST)) {
+					exchange.getResponseHeaders().set("Allow", POST);
+					sendError(exchange, METHOD_NOT_ALLOWED, "Use POST");
+					return;
+				}
+				String body = readBody(exchange.getRequestBody());
+				if (body == null) {
+					sendError(exchange, PAYLOAD_TOO_LARGE, "Request body is too large");
+					return;
+				}
+				List<String> budgetValues = new ArrayList<String>();
+				List<String> engineValues = new ArrayList<String>();
+				readParameters(exchange.getRequestURI().getRawQuery(), budgetValues, engineValues);
+				readParameters(body, budgetValues, engineValues);
+
+				if (budgetValues.isEmpty() || (!sweep && budgetValues.size() > 1)) {
+					sendError(exchange, BAD_REQUEST, sweep ? "Give at least one budget" : "Give exactly one budget");
+					return;
+				}
+				double[] budgets = new double[budgetValues.size()];
+				for (int i = 0; i < budgets.length; i++) {
+					budgets[i] = parseBudget(budgetValues.get(i));
+				}
+				SpendingAlgorithm.Engine engine = SpendingAlgorithm.Engine.INDEXED;
+				if (!engineValues.isEmpty()) {
+					String engineName = engineValues.get(engineValues.size() - 1);
+					try {
+						engine = SpendingAlgorithm.Engine.valueOf(engineName.toUpperCase(Locale.ROOT));
+					}
+					catch (IllegalArgumentException e) {
+						throw new IllegalArgumentException("Unknown engine: " + engineName);
+					}
+				}
+
+				PartyCatalog snapshot = catalogWatcher.getCatalog();
+				Plan[] plans = new SpendingAlgorithm(engine).planAll(snapshot, budgets);
+				StringBuilder json = new StringBuilder();
+				if (sweep) {
+					json.append("{\"plans\":");
+					PlanWriter.appendPlans(json, plans);
+					json.append('}');
+				}
+				else {
+					PlanWriter.appendPlan(json, plans[0]);
+				}
+				exchange.getResponseHeaders().set(CATALOG_VERSION_HEADER, Long.toString(snapshot.getVersion()));
+				send(exchange, OK, json.toString());
+			}
+			catch (IllegalArgumentException e) {
+				sendError(exchange, BAD_REQUEST, e.getMessage());
+			}
+			catch (RuntimeException e) {
+				sendError(exchange, SERVER_ERROR, "Could not plan the party");
+			}
+			finally {
+				exchange.close();
+			}
+		}
+	}
+
+	/**
+	 * Reads the request body as text
+	 * @return the body, or null if it is longer than the limit
+	 */
+	private static String readBody(InputStream body) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		for (int read = body.read(buffer); read >= 0; read = body.read(buffer)) {
+			bytes.write(buffer, 0, read);
+			if (bytes.size() > MAX_BODY_BYTES) {
+				return null;
+			}
+		}
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Collects the budget and engine values from form encoded parameters such as budget=10&budget=20&engine=exact
+	 */
+	private static void readParameters(String parameters, List<String> budgetValues, List<String> engineValues)
+			throws UnsupportedEncodingException {
+		if (parameters == null || parameters.trim().isEmpty()) {
+			return;
+		}
+		for (String parameter : parameters.trim().split("&")) {
+			int separator = parameter.indexOf('=');
+			String name = URLDecoder.decode(separator < 0 ? parameter : parameter.substring(0, separator), "UTF-8");
+			String value = separator < 0 ? "" : URLDecoder.decode(parameter.substring(separator + 1), "UTF-8");
+			if (name.equals(BUDGET_PARAMETER)) {
+				budgetValues.add(value);
+			}
+			else if (name.equals(ENGINE_PARAMETER)) {
+				engineValues.add(value);
+			}
+			else {
+				throw new IllegalArgumentException("Unknown parameter: " + name);
+			}
+		}
+	}
+
+	private static double parseBudget(String budget) {
+		try {
+			BigDecimal amount = new BigDecimal(budget.trim().replace(",", ""));
+			if (amount.signum() < 0) {
+				throw new IllegalArgumentException("Budget cannot be negative: " + budget);
+			}
+			return amount.doubleValue();
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid budget: " + budget);
+		}
+	}
+
+	private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+		StringBuilder json = new StringBuilder("{\"error\":");
+		PlanWriter.appendString(json, message == null ? "" : message);
+		send(exchange, status, json.append('}').toString());
+	}
+
+	private static void send(HttpExchange exchange, int status, String json) throws IOException {
+		byte[] response = json.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+		exchange.sendResponseHeaders(status, response.length);
+		OutputStream out = exchange.getResponseBody();
+		try {
+			out.write(response);
+		}
+		finally {
+			out.close();
+		}
+	}
+
+}
@@ -0,0 +1,644 @@
+package party_Planning;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Editable planning session that starts from a catalog and takes one change at a time: a guest added or removed,
+ * a preference added or removed, or an item's price set. Each change returns the new plan without parsing the files
+ * or building the index again, and buys the same items as IndexedSelectionEngine would for the edited guest list.
+ *
+ * The session keeps the cheapest-first purchase order of the priced items with the running total before each item.
+ * A change only moves the items it touches within that order and recomputes the running totals from the first moved item on,
+ * and a plan is found with a binary search over the running totals. Guests added during the session come after
+ * every earlier guest, as if they were appended to people.txt.
+ *
+ * Guests are visited in the order the original greedy would visit the edited people.txt, see PartyCatalog.visitOrder.
+ * Adding or removing a guest works that order out again for every guest, and when the guests already invited keep their
+ * order, which is the usual case, only the items of the guest added or removed move. Otherwise every item is placed again.
+ *
+ * A session is meant to be used by one thread. The plans it returns are not changed by later edits, so they can be
+ * handed to other threads
+ * @author Samarth Desai
+ *
+ */
+public class PlanningSession {
+
+	private static final int CHUNK_BITS = 10;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+	private static final long NOT_ORDERED = -1;
+	private static final int NO_ITEM = -1;
+
+	private double budget;
+	private long budgetCents;
+
+	private final Map<String, Integer> itemIds = new HashMap<String, Integer>();
+	private String[] itemNames;
+	private int itemCount;
+	private long[] priceCents;
+	/** Holders of each item as guest slot and preference number packed in a long, in visiting order */
+	private long[][] holders;
+	private int[] holderCounts;
+	/** Price and first holder each item was placed in the purchase order with, or NOT_ORDERED */
+	private long[] orderedPrice;
+	private long[] orderedFirst;
+
+	private int[] order;
+	private int orderSize;
+	/** Cost in cents of buying every unit of the items before each position of the order, with one extra entry for the total */
+	private long[] costBefore;
+
+	/** Guests by slot in chunks, so a plan can keep the guest list it was made from while the session copies only the chunks it edits */
+	private Guest[][] guestChunks;
+	private int[] chunkGenerations;
+	private int generation;
+	private int guestSlots;
+	private final Map<String, Integer> guestSlotsByName = new HashMap<String, Integer>();
+	/** Position of each guest slot in the order the original greedy visits the guests */
+	private int[] visitRanks;
+
+	/**
+	 * Starts a session from the guests and prices in the catalog
+	 * @param catalog
+	 * @param partyBudget
+	 */
+	public PlanningSession(PartyCatalog catalog, double partyBudget) {
+
+		itemCount = catalog.getItemCount();
+		int capacity = Math.max(16, itemCount);
+		itemNames = new String[capacity];
+		priceCents = new long[capacity];
+		holders = new long[capacity][];
+		holderCounts = new int[capacity];
+		orderedPrice = new long[capacity];
+		orderedFirst = new long[capacity];
+		Arrays.fill(orderedFirst, NOT_ORDERED);
+		for (int item = 0; item < itemCount; item++) {
+			itemNames[item] = catalog.getItemName(item);
+			itemIds.put(itemNames[item], item);
+			priceCents[item] = catalog.getPriceCents(item);
+			holders[item] = new long[4];
+		}
+
+		guestChunks = new Guest[Math.max(1, (catalog.getGuestCount() + CHUNK_MASK) >> CHUNK_BITS)][];
+		chunkGenerations = new int[guestChunks.length];
+		for (int guest = 0; guest < catalog.getGuestCount(); guest++) {
+			int[] preferences = catalog.getGuestPreferences(guest);
+			int[] numbers = new int[preferences.length];
+			for (int i = 0; i < preferences.length; i++) {
+				numbers[i] = i;
+			}
+			addGuestSlot(new Guest(catalog.getGuestName(guest), preferences, numbers, preferences.length));
+		}
+		//Holders added in visiting order are each appended to their item's holders
+		int[] guestOrder = catalog.guestVisitOrder();
+		visitRanks = new int[Math.max(16, guestSlots)];
+		for (int visit = 0; visit < guestOrder.length; visit++) {
+			int guest = guestOrder[visit];
+			visitRanks[guest] = visit;
+			int[] preferences = guest(guest).items;
+			for (int i = 0; i < preferences.length; i++) {
+				addHolder(preferences[i], holderKey(guest, i));
+			}
+		}
+
+		order = new int[capacity];
+		costBefore = new long[capacity + 1];
+		for (int item = 0; item < itemCount; item++) {
+			if (isOrderable(item)) {
+				placeInOrder(item);
+			}
+		}
+		repairCosts(0);
+		setBudgetCents(partyBudget);
+
+	}
+
+	/**
+	 * Sends the plan for the session's current guests, prices and budget
+	 * @return
+	 */
+	public Plan getPlan() {
+
+		//Items before fullItems are bought for every holder; the next one may be bought for its first holders only
+		int firstAtBudget = firstCostBefore(budgetCents, false);
+		int firstOverBudget = firstCostBefore(budgetCents, true) - 1;
+		int fullItems = Math.min(Math.min(firstAtBudget, firstOverBudget), orderSize);
+		int partialItem = NO_ITEM;
+		long partialUnits = 0;
+		if (firstOverBudget < firstAtBudget && firstOverBudget < orderSize) {
+			partialItem = order[firstOverBudget];
+			partialUnits = (budgetCents - costBefore[firstOverBudget]) / priceCents[partialItem];
+		}
+
+		Map<String, Integer> itemsBought = new HashMap<String, Integer>();
+		int[] boughtItems = Arrays.copyOf(order, fullItems);
+		for (int item : boughtItems) {
+			itemsBought.put(itemNames[item], holderCounts[item]);
+		}
+		long[] partlyBought = new long[0];
+		if (partialItem != NO_ITEM) {
+			if (partialUnits > 0) {
+				itemsBought.put(itemNames[partialItem], (int) partialUnits);
+			}
+			//Holders are kept in visiting order, so they are sorted by slot for the plan to look them up later
+			partlyBought = Arrays.copyOf(holders[partialItem], (int) partialUnits);
+			Arrays.sort(partlyBought);
+		}
+		long spentCents = costBefore[fullItems] + partialUnits * (partialItem == NO_ITEM ? 0 : priceCents[partialItem]);
+		boolean firstRoundComplete = budgetCents > 0 && (orderSize == 0 || fullItems > 0);
+
+		return new Plan(budget, itemsBought, remainingSupplier(boughtItems, partialItem, partlyBought, firstRoundComplete),
+				spentCents / 100.0);
+
+	}
+
+	/**
+	 * Changes the budget
+	 * @param partyBudget
+	 * @return the plan for the new budget
+	 */
+	public Plan setBudget(double partyBudget) {
+		setBudgetCents(partyBudget);
+		return getPlan();
+	}
+
+	/**
+	 * Adds a guest after every guest already in the session
+	 * @param guestName
+	 * @param preferences the food and drinks the guest prefers, in the order listed
+	 * @return the new plan
+	 */
+	public Plan addGuest(String guestName, List<String> preferences) {
+		if (guestSlotsByName.containsKey(guestName)) {
+			throw new IllegalArgumentException("Guest is already invited: " + guestName);
+		}
+		int slot = guestSlots;
+		int[] items = new int[preferences.size()];
+		int[] numbers = new int[items.length];
+		for (int i = 0; i < items.length; i++) {
+			items[i] = itemId(preferences.get(i));
+			numbers[i] = i;
+		}
+		addGuestSlot(new Guest(guestName, items, numbers, items.length));
+		if (visitGuestsAgain(slot)) {
+			for (int i = 0; i < items.length; i++) {
+				addHolder(items[i], holderKey(slot, i));
+				reorder(items[i]);
+			}
+		}
+		return getPlan();
+	}
+
+	/**
+	 * Removes a guest and all of their preferences
+	 * @param guestName
+	 * @return the new plan
+	 */
+	public Plan removeGuest(String guestName) {
+		int slot = guestSlot(guestName);
+		Guest guest = guest(slot);
+		setGuest(slot, null);
+		guestSlotsByName.remove(guestName);
+		for (int i = 0; i < guest.items.length; i++) {
+			removeHolder(guest.items[i], holderKey(slot, guest.numbers[i]));
+			reorder(guest.items[i]);
+		}
+		visitGuestsAgain(-1);
+		return getPlan();
+	}
+
+	/**
+	 * Adds an item to the end of a guest's preferences
+	 * @param guestName
+	 * @param itemName
+	 * @return the new plan
+	 */
+	public Plan addPreference(String guestName, String itemName) {
+		int slot = guestSlot(guestName);
+		Guest guest = guest(slot);
+		int item = itemId(itemName);
+		int length = guest.items.length;
+		int[] items = Arrays.copyOf(guest.items, length + 1);
+		int[] numbers = Arrays.copyOf(guest.numbers, length + 1);
+		items[length] = item;
+		numbers[length] = guest.nextNumber;
+		setGuest(slot, new Guest(guest.name, items, numbers, guest.nextNumber + 1));
+		addHolder(item, holderKey(slot, guest.nextNumber));
+		reorder(item);
+		return getPlan();
+	}
+
+	/**
+	 * Removes the first time an item is listed in a guest's preferences
+	 * @param guestName
+	 * @param itemName
+	 * @return the new plan
+	 */
+	public Plan removePreference(String guestName, String itemName) {
+		int slot = guestSlot(guestName);
+		Guest guest = guest(slot);
+		Integer item = itemIds.get(itemName);
+		int position = -1;
+		for (int i = 0; item != null && i < guest.items.length && position < 0; i++) {
+			if (guest.items[i] == item) {
+				position = i;
+			}
+		}
+		if (position < 0) {
+			throw new IllegalArgumentException(guestName + " does not prefer " + itemName);
+		}
+		int length = guest.items.length;
+		int[] items = new int[length - 1];
+		int[] numbers = new int[length - 1];
+		System.arraycopy(guest.items, 0, items, 0, position);
+		System.arraycopy(guest.items, position + 1, items, position, length - position - 1);
+		System.arraycopy(guest.numbers, 0, numbers, 0, position);
+		System.arraycopy(guest.numbers, position + 1, numbers, position, length - position - 1);
+		setGuest(slot, new Guest(guest.name, items, numbers, guest.nextNumber));
+		removeHolder(item, holderKey(slot, guest.numbers[position]));
+		reorder(item);
+		return getPlan();
+	}
+
+	/**
+	 * Sets the unit price of an item, adding it to the menu if it has no price yet
+	 * @param itemName
+	 * @param price in dollars
+	 * @return the new plan
+	 */
+	public Plan setPrice(String itemName, double price) {
+		if (!(price >= 0) || Double.isInfinite(price)) {
+			throw new IllegalArgumentException("Invalid price for " + itemName + ": " + price);
+		}
+		int item = itemId(itemName);
+		priceCents[item] = PartyCatalog.toCents(Double.toString(price));
+		reorder(item);
+		return getPlan();
+	}
+
+	private void setBudgetCents(double partyBudget) {
+		budget = partyBudget;
+		budgetCents = PartyCatalog.budgetToCents(partyBudget);
+	}
+
+	/**
+	 * Finds the first position whose running total is at least, or over, the budget
+	 * @return a position from 0 to the order size plus one
+	 */
+	private int firstCostBefore(long cents, boolean over) {
+		int low = 0;
+		int high = orderSize + 1;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (over ? costBefore[middle] > cents : costBefore[middle] >= cents) {
+				high = middle;
+			}
+			else {
+				low = middle + 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Moves an item to where its current price and first holder put it in the purchase order,
+	 * then recomputes the running totals from the first position that changed
+	 */
+	private void reorder(int item) {
+		int repairFrom = orderSize;
+		if (orderedFirst[item] != NOT_ORDERED) {
+			int rank = rank(orderedPrice[item], orderedFirst[item]);
+			System.arraycopy(order, rank + 1, order, rank, orderSize - rank - 1);
+			orderSize--;
+			orderedFirst[item] = NOT_ORDERED;
+			repairFrom = rank;
+		}
+		if (isOrderable(item)) {
+			repairFrom = Math.min(repairFrom, placeInOrder(item));
+		}
+		repairCosts(repairFrom);
+	}
+
+	private boolean isOrderable(int item) {
+		return priceCents[item] != PartyCatalog.NO_PRICE && holderCounts[item] > 0;
+	}
+
+	/**
+	 * Inserts an item into the purchase order by price, then by its first holder
+	 * @return the position it was placed at
+	 */
+	private int placeInOrder(int item) {
+		orderedPrice[item] = priceCents[item];
+		orderedFirst[item] = holders[item][0];
+		int rank = -rank(orderedPrice[item], orderedFirst[item]) - 1;
+		if (orderSize == order.length) {
+			order = Arrays.copyOf(order, orderSize * 2);
+			costBefore = Arrays.copyOf(costBefore, orderSize * 2 + 1);
+		}
+		System.arraycopy(order, rank, order, rank + 1, orderSize - rank);
+		order[rank] = item;
+		orderSize++;
+		return rank;
+	}
+
+	/**
+	 * Binary search of the purchase order for the item placed with the given price and first holder
+	 * @return its position, or -(insertion point) - 1 if no item was placed with them
+	 */
+	private int rank(long price, long firstHolder) {
+		int low = 0;
+		int high = orderSize - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int item = order[middle];
+			int comparison = orderedPrice[item] != price ? Long.compare(orderedPrice[item], price)
+					: compareHolders(orderedFirst[item], firstHolder);
+			if (comparison < 0) {
+				low = middle + 1;
+			}
+			else if (comparison > 0) {
+				high = middle - 1;
+			}
+			else {
+				return middle;
+			}
+		}
+		return -(low + 1);
+	}
+
+	private void repairCosts(int from) {
+		for (int rank = from; rank < orderSize; rank++) {
+			int item = order[rank];
+			costBefore[rank + 1] = costBefore[rank] + priceCents[item] * holderCounts[item];
+		}
+	}
+
+	/**
+	 * Holders are kept in visiting order, so holders visited after every other are appended and the rest are found with a binary search
+	 */
+	private void addHolder(int item, long key) {
+		long[] itemHolders = holders[item];
+		int count = holderCounts[item];
+		if (count == itemHolders.length) {
+			itemHolders = Arrays.copyOf(itemHolders, count * 2);
+			holders[item] = itemHolders;
+		}
+		int position = count == 0 || compareHolders(itemHolders[count - 1], key) < 0 ? count : -findHolder(itemHolders, count, key) - 1;
+		System.arraycopy(itemHolders, position, itemHolders, position + 1, count - position);
+		itemHolders[position] = key;
+		holderCounts[item]++;
+	}
+
+	private void removeHolder(int item, long key) {
+		long[] itemHolders = holders[item];
+		int position = findHolder(itemHolders, holderCounts[item], key);
+		System.arraycopy(itemHolders, position + 1, itemHolders, position, holderCounts[item] - position - 1);
+		holderCounts[item]--;
+	}
+
+	/**
+	 * Binary search of an item's holders for a holder
+	 * @return its position, or -(insertion point) - 1 if it is not a holder
+	 */
+	private int findHolder(long[] itemHolders, int count, long key) {
+		int low = 0;
+		int high = count - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = compareHolders(itemHolders[middle], key);
+			if (comparison < 0) {
+				low = middle + 1;
+			}
+			else if (comparison > 0) {
+				high = middle - 1;
+			}
+			else {
+				return middle;
+			}
+		}
+		return -(low + 1);
+	}
+
+	/**
+	 * Orders holders by when their guest is visited, then by preference number
+	 */
+	private int compareHolders(long first, long second) {
+		int firstRank = visitRanks[(int) (first >>> 32)];
+		int secondRank = visitRanks[(int) (second >>> 32)];
+		if (firstRank != secondRank) {
+			return Integer.compare(firstRank, secondRank);
+		}
+		return Integer.compare((int) first, (int) second);
+	}
+
+	/**
+	 * Works out the visiting order of the guests after one was added or removed. If the guests who were already invited
+	 * are still visited in the same order as each other, the holders and purchase order stay valid, and only the added guest's
+	 * holders still need to be placed. Otherwise every item's holders are sorted again, including the added guest's,
+	 * and every item is placed in the purchase order again
+	 * @param addedSlot slot of the guest just added, or -1 after a guest was removed
+	 * @return whether the added guest's holders still need to be placed
+	 */
+	private boolean visitGuestsAgain(int addedSlot) {
+		String[] names = new String[guestSlotsByName.size()];
+		int[] slots = new int[names.length];
+		int invited = 0;
+		for (int slot = 0; slot < guestSlots; slot++) {
+			Guest guest = guest(slot);
+			if (guest != null) {
+				names[invited] = guest.name;
+				slots[invited++] = slot;
+			}
+		}
+		int[] guestOrder = PartyCatalog.visitOrder(names, invited);
+		int[] ranks = new int[Math.max(visitRanks.length, guestSlots)];
+		int[] slotsByRank = new int[invited];
+		boolean sameOrder = true;
+		int lastRank = -1;
+		for (int visit = 0; visit < invited; visit++) {
+			int slot = slots[guestOrder[visit]];
+			ranks[slot] = visit;
+			slotsByRank[visit] = slot;
+			if (slot != addedSlot) {
+				sameOrder &= visitRanks[slot] > lastRank;
+				lastRank = visitRanks[slot];
+			}
+		}
+		visitRanks = ranks;
+		if (sameOrder) {
+			return true;
+		}
+
+		if (addedSlot >= 0) {
+			Guest added = guest(addedSlot);
+			for (int i = 0; i < added.items.length; i++) {
+				long[] itemHolders = holders[added.items[i]];
+				if (holderCounts[added.items[i]] == itemHolders.length) {
+					holders[added.items[i]] = Arrays.copyOf(itemHolders, itemHolders.length * 2);
+				}
+				holders[added.items[i]][holderCounts[added.items[i]]++] = holderKey(addedSlot, i);
+			}
+		}
+		for (int item = 0; item < itemCount; item++) {
+			sortHolders(item, slotsByRank);
+			orderedFirst[item] = NOT_ORDERED;
+		}
+		orderSize = 0;
+		for (int item = 0; item < itemCount; item++) {
+			if (isOrderable(item)) {
+				placeInOrder(item);
+			}
+		}
+		repairCosts(0);
+		return false;
+	}
+
+	/**
+	 * Sorts an item's holders into visiting order, keyed by their guest's rank instead of slot while they are sorted
+	 */
+	private void sortHolders(int item, int[] slotsByRank) {
+		long[] itemHolders = holders[item];
+		int count = holderCounts[item];
+		for (int i = 0; i < count; i++) {
+			itemHolders[i] = holderKey(visitRanks[(int) (itemHolders[i] >>> 32)], (int) itemHolders[i]);
+		}
+		Arrays.sort(itemHolders, 0, count);
+		for (int i = 0; i < count; i++) {
+			itemHolders[i] = holderKey(slotsByRank[(int) (itemHolders[i] >>> 32)], (int) itemHolders[i]);
+		}
+	}
+
+	private static long holderKey(int slot, int preferenceNumber) {
+		return ((long) slot << 32) | preferenceNumber;
+	}
+
+	/**
+	 * Sends the id of an item, giving a name not seen before the next id with no price
+	 */
+	private int itemId(String itemName) {
+		Integer id = itemIds.get(itemName);
+		if (id != null) {
+			return id;
+		}
+		if (itemCount == itemNames.length) {
+			int capacity = itemCount * 2;
+			itemNames = Arrays.copyOf(itemNames, capacity);
+			priceCents = Arrays.copyOf(priceCents, capacity);
+			holders = Arrays.copyOf(holders, capacity);
+			holderCounts = Arrays.copyOf(holderCounts, capacity);
+			orderedPrice = Arrays.copyOf(orderedPrice, capacity);
+			orderedFirst = Arrays.copyOf(orderedFirst, capacity);
+			Arrays.fill(orderedFirst, itemCount, capacity, NOT_ORDERED);
+		}
+		//Item names are only ever appended, so plans made earlier can keep reading the old array
+		itemNames[itemCount] = itemName;
+		priceCents[itemCount] = PartyCatalog.NO_PRICE;
+		holders[itemCount] = new long[4];
+		itemIds.put(itemName, itemCount);
+		return itemCount++;
+	}
+
+	private int guestSlot(String guestName) {
+		Integer slot = guestSlotsByName.get(guestName);
+		if (slot == null) {
+			throw new IllegalArgumentException("No such guest: " + guestName);
+		}
+		return slot;
+	}
+
+	private Guest guest(int slot) {
+		return guestChunks[slot >> CHUNK_BITS][slot & CHUNK_MASK];
+	}
+
+	private void addGuestSlot(Guest guest) {
+		int chunk = guestSlots >> CHUNK_BITS;
+		if (chunk == guestChunks.length) {
+			guestChunks = Arrays.copyOf(guestChunks, chunk * 2);
+			chunkGenerations = Arrays.copyOf(chunkGenerations, chunk * 2);
+		}
+		if (guestChunks[chunk] == null) {
+			guestChunks[chunk] = new Guest[CHUNK_SIZE];
+			chunkGenerations[chunk] = generation;
+		}
+		guestSlotsByName.put(guest.name, guestSlots);
+		setGuest(guestSlots++, guest);
+	}
+
+	/**
+	 * Writes a guest slot, first copying its chunk if a plan still reads the chunk
+	 */
+	private void setGuest(int slot, Guest guest) {
+		int chunk = slot >> CHUNK_BITS;
+		if (chunkGenerations[chunk] != generation) {
+			guestChunks[chunk] = guestChunks[chunk].clone();
+			chunkGenerations[chunk] = generation;
+		}
+		guestChunks[chunk][slot & CHUNK_MASK] = guest;
+	}
+
+	/**
+	 * Captures what the remaining items of a plan depend on, so they can be collected later even after the session changes
+	 */
+	private Supplier<Map<String, List<String>>> remainingSupplier(final int[] boughtItems, final int partialItem,
+			final long[] partlyBought, final boolean firstRoundComplete) {
+		final Guest[][] chunks = guestChunks.clone();
+		final int slots = guestSlots;
+		final String[] names = itemNames;
+		final int items = itemCount;
+		//Chunks are now shared with the plan, so the next edit to each one copies it
+		generation++;
+		return new Supplier<Map<String, List<String>>>() {
+			@Override
+			public Map<String, List<String>> get() {
+				boolean[] bought = new boolean[items];
+				for (int item : boughtItems) {
+					bought[item] = true;
+				}
+				Map<String, List<String>> remaining = new HashMap<String, List<String>>();
+				for (int slot = 0; slot < slots; slot++) {
+					Guest guest = chunks[slot >> CHUNK_BITS][slot & CHUNK_MASK];
+					if (guest == null) {
+						continue;
+					}
+					List<String> guestRemaining = new ArrayList<String>();
+					for (int i = 0; i < guest.items.length; i++) {
+						int item = guest.items[i];
+						if (!bought[item] && (item != partialItem || Arrays.binarySearch(partlyBought, holderKey(slot, guest.numbers[i])) < 0)) {
+							guestRemaining.add(names[item]);
+						}
+					}
+					if (!guestRemaining.isEmpty() || (!firstRoundComplete && guest.items.length == 0)) {
+						remaining.put(guest.name, guestRemaining);
+					}
+				}
+				return remaining;
+			}
+		};
+	}
+
+	/**
+	 * A guest's name and preferences, never changed once created; an edit replaces the guest with a new one
+	 */
+	private static final class Guest {
+
+		private final String name;
+		private final int[] items;
+		/** Number each preference was given when it was added, which keeps its place among the guest's holders */
+		private final int[] numbers;
+		private final int nextNumber;
+
+		private Guest(String guestName, int[] preferenceItems, int[] preferenceNumbers, int nextPreferenceNumber) {
+			name = guestName;
+			items = preferenceItems;
+			numbers = preferenceNumbers;
+			nextNumber = nextPreferenceNumber;
+		}
+	}
+
+}
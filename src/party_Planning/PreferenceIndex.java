@@ -0,0 +1,232 @@
+package party_Planning;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Inverted index over a catalog's compact form: for every priced item, the (guest, preference position) pairs
+ * that list it, stored in flat int arrays in the order the original greedy visited the guests, see PartyCatalog.guestVisitOrder.
+ * Each guest's preferences also get a slot in one flat array of all preferences, so per-solve state such as
+ * whether a preference was bought fits in a single primitive array.
+ *
+ * Catalogs with at least the threshold number of guests are indexed in parallel: the visiting order is split into ranges,
+ * each worker counts the holders of every item in its range, the counts are added up into each range's starting offsets,
+ * and each worker then writes its holders at those offsets. The arrays are the same as the sequential build's.
+ * Every few thousand preferences the build checks whether the thread that started it was interrupted, see SolveProgress
+ * @author Samarth Desai
+ *
+ */
+class PreferenceIndex {
+
+	/** Guest count at which the index is built in parallel, which can be set with the party_Planning.parallelThreshold property */
+	static final int DEFAULT_PARALLEL_THRESHOLD = Integer.getInteger("party_Planning.parallelThreshold", 100000);
+	/** Fewest guests worth giving to a worker of their own */
+	private static final int MIN_GUESTS_PER_RANGE = 8192;
+
+	final PartyCatalog catalog;
+	/** First slot of each guest's preferences in the catalog's flat preference array, with one extra entry for the total. Shared with the catalog */
+	final int[] guestStart;
+	/** First holder of each item in holderGuest and holderPosition, with one extra entry for the total */
+	final int[] holderStart;
+	final int[] holderGuest;
+	final int[] holderPosition;
+	/** Items with at least one holder and a price */
+	final int[] pricedItems;
+	/** Where the original greedy first came across each priced item, counting preferences in visiting order */
+	final int[] firstVisit;
+	private final int[] guestOrder;
+
+	PreferenceIndex(PartyCatalog partyCatalog) {
+		this(partyCatalog, DEFAULT_PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * Builds the index, in parallel if the catalog has at least the given number of guests
+	 * @param partyCatalog
+	 * @param parallelThreshold
+	 */
+	PreferenceIndex(PartyCatalog partyCatalog, int parallelThreshold) {
+
+		PlannerMetrics.Timer timer = PlannerMetrics.start(PlannerMetrics.Phase.INDEX_BUILD);
+		catalog = partyCatalog;
+		int guestCount = catalog.getGuestCount();
+		int itemCount = catalog.getItemCount();
+
+		guestOrder = catalog.guestVisitOrder();
+		int ranges = 1;
+		if (guestCount >= parallelThreshold) {
+			ranges = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, guestCount / MIN_GUESTS_PER_RANGE));
+		}
+		int[] rangeStart = new int[ranges + 1];
+		for (int range = 0; range <= ranges; range++) {
+			rangeStart[range] = (int) ((long) guestCount * range / ranges);
+		}
+
+		//Each range counts its own holders, so workers never write to the same counter
+		guestStart = catalog.preferenceStarts();
+		int[][] rangeHolderCounts = new int[ranges][itemCount];
+		run(new IndexRanges(IndexRanges.COUNT, Thread.currentThread(), rangeStart, rangeHolderCounts, 0, ranges));
+
+		//Each range's counts become the offset at which its first holder of each item is written
+		holderStart = new int[itemCount + 1];
+		int pricedCount = 0;
+		for (int item = 0; item < itemCount; item++) {
+			int holders = holderStart[item];
+			for (int range = 0; range < ranges; range++) {
+				int count = rangeHolderCounts[range][item];
+				rangeHolderCounts[range][item] = holders;
+				holders += count;
+			}
+			holderStart[item + 1] = holders;
+			if (holders > holderStart[item]) {
+				pricedCount++;
+			}
+		}
+		pricedItems = new int[pricedCount];
+		for (int item = 0, i = 0; item < itemCount; item++) {
+			if (holderStart[item + 1] > holderStart[item]) {
+				pricedItems[i++] = item;
+			}
+		}
+
+		holderGuest = new int[holderStart[itemCount]];
+		holderPosition = new int[holderStart[itemCount]];
+		run(new IndexRanges(IndexRanges.FILL, Thread.currentThread(), rangeStart, rangeHolderCounts, 0, ranges));
+
+		//An item's first holder is the first preference for it the original greedy came across
+		int[] visitedBefore = new int[guestCount];
+		int visited = 0;
+		for (int guest : guestOrder) {
+			visitedBefore[guest] = visited;
+			visited += guestStart[guest + 1] - guestStart[guest];
+		}
+		firstVisit = new int[itemCount];
+		for (int item : pricedItems) {
+			int holder = holderStart[item];
+			firstVisit[item] = visitedBefore[holderGuest[holder]] + holderPosition[holder];
+		}
+		PlannerMetrics.stop(timer);
+
+	}
+
+	private static void run(IndexRanges task) {
+		if (task.lastRange - task.firstRange == 1) {
+			task.compute();
+		}
+		else {
+			ForkJoinPool.commonPool().invoke(task);
+		}
+	}
+
+	int holderCount(int item) {
+		return holderStart[item + 1] - holderStart[item];
+	}
+
+	/**
+	 * Slot of a holder's preference in the flat preference array
+	 */
+	int preferenceSlot(int holder) {
+		return guestStart[holderGuest[holder]] + holderPosition[holder];
+	}
+
+	int preferenceCount() {
+		return guestStart[guestStart.length - 1];
+	}
+
+	/**
+	 * Counts or writes the holders of a span of ranges of the visiting order, splitting the span in half until a single range is left
+	 */
+	private class IndexRanges extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+		private static final int COUNT = 0;
+		private static final int FILL = 1;
+
+		private final int phase;
+		/** Thread that started the build, whose interruption cancels it */
+		private final Thread solver;
+		private final int[] rangeStart;
+		/** Holders of each item per range while counting, then the next slot of each item per range while filling */
+		private final int[][] rangeHolders;
+		private final int firstRange;
+		private final int lastRange;
+
+		private IndexRanges(int indexPhase, Thread solvingThread, int[] visitRangeStart, int[][] holdersByRange, int first, int last) {
+			phase = indexPhase;
+			solver = solvingThread;
+			rangeStart = visitRangeStart;
+			rangeHolders = holdersByRange;
+			firstRange = first;
+			lastRange = last;
+		}
+
+		@Override
+		protected void compute() {
+			if (lastRange - firstRange > 1) {
+				int middle = (firstRange + lastRange) >>> 1;
+				invokeAll(new IndexRanges(phase, solver, rangeStart, rangeHolders, firstRange, middle),
+						new IndexRanges(phase, solver, rangeStart, rangeHolders, middle, lastRange));
+			}
+			else if (phase == COUNT) {
+				count(rangeStart[firstRange], rangeStart[firstRange + 1], rangeHolders[firstRange]);
+			}
+			else {
+				fill(rangeStart[firstRange], rangeStart[firstRange + 1], rangeHolders[firstRange]);
+			}
+		}
+
+		/**
+		 * Counts the holders of every priced item among the guests visited from first to last
+		 */
+		private void count(int first, int last, int[] holderCount) {
+			for (int visit = first; visit < last; visit++) {
+				if (visit % SolveProgress.CHECK_INTERVAL == 0) {
+					checkProgress(visit);
+				}
+				int guest = guestOrder[visit];
+				for (int slot = guestStart[guest]; slot < guestStart[guest + 1]; slot++) {
+					int item = catalog.getPreferenceItem(slot);
+					if (catalog.getPriceCents(item) != PartyCatalog.NO_PRICE) {
+						holderCount[item]++;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Writes the holders of every priced item among the guests visited from first to last, starting at the range's offset for each item
+		 */
+		private void fill(int first, int last, int[] next) {
+			for (int visit = first; visit < last; visit++) {
+				if (visit % SolveProgress.CHECK_INTERVAL == 0) {
+					checkProgress(guestOrder.length + (long) visit);
+				}
+				int guest = guestOrder[visit];
+				int start = guestStart[guest];
+				for (int slot = start; slot < guestStart[guest + 1]; slot++) {
+					int item = catalog.getPreferenceItem(slot);
+					if (catalog.getPriceCents(item) != PartyCatalog.NO_PRICE) {
+						holderGuest[next[item]] = guest;
+						holderPosition[next[item]] = slot - start;
+						next[item]++;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Stops the build if its thread was interrupted. The thread that started it also reports its progress,
+		 * counting each guest once while counting and once while writing
+		 * @param done
+		 */
+		private void checkProgress(long done) {
+			if (Thread.currentThread() == solver) {
+				SolveProgress.update(PlannerMetrics.Phase.INDEX_BUILD, done, 2L * guestOrder.length);
+			}
+			else {
+				SolveProgress.checkCancelled(solver);
+			}
+		}
+	}
+
+}
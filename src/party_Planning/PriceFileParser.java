@@ -0,0 +1,140 @@
+package party_Planning;
+
+import java.util.Map;
+
+/**
+ * Reads the <name>:price lines of food.txt and drinks.txt by scanning character positions, without regular expressions
+ * or splitting each line into new strings. Only the item name is copied out of a line, and prices with at most two decimals
+ * are converted to cents directly from their digits.
+ *
+ * The name is the text between the first < and the next > before the first colon, and the price is the text after the
+ * first colon up to the next colon or the end of the line. Lines end with \n, \r\n or \r, and lines without a colon
+ * or without a name are skipped
+ * @author Samarth Desai
+ *
+ */
+final class PriceFileParser {
+
+	private static final char NAME_START = '<';
+	private static final char NAME_END = '>';
+	private static final char PRICE_SEPARATOR = ':';
+	private static final char DECIMAL_POINT = '.';
+	private static final char LINE_FEED = '\n';
+	private static final char CARRIAGE_RETURN = '\r';
+	private static final int MAX_FAST_DIGITS = 15;
+	private static final double CENTS_PER_DOLLAR = 100.0;
+
+	private final Map<String, Double> consumables;
+	private final Map<String, Long> pricesInCents;
+
+	/**
+	 * Sets up a parser that adds every priced item to both maps, a later price for the same name replacing the earlier one
+	 * @param consumablesMap unit prices in dollars
+	 * @param pricesInCentsMap the same prices in whole cents
+	 */
+	PriceFileParser(Map<String, Double> consumablesMap, Map<String, Long> pricesInCentsMap) {
+
+		consumables = consumablesMap;
+		pricesInCents = pricesInCentsMap;
+
+	}
+
+	/**
+	 * Reads every line of the contents of a price file
+	 * @param content
+	 */
+	void parse(String content) {
+		int lineStart = 0;
+		int length = content.length();
+		for (int i = 0; i < length; i++) {
+			char next = content.charAt(i);
+			if (next == LINE_FEED || next == CARRIAGE_RETURN) {
+				readLine(content, lineStart, i);
+				if (next == CARRIAGE_RETURN && i + 1 < length && content.charAt(i + 1) == LINE_FEED) {
+					i++;
+				}
+				lineStart = i + 1;
+			}
+		}
+		if (lineStart < length) {
+			readLine(content, lineStart, length);
+		}
+	}
+
+	private void readLine(String content, int start, int end) {
+		int separator = indexOf(content, PRICE_SEPARATOR, start, end);
+		if (separator < 0) {
+			return;
+		}
+		int nameStart = indexOf(content, NAME_START, start, separator);
+		int nameEnd = nameStart < 0 ? -1 : indexOf(content, NAME_END, nameStart + 1, separator);
+		if (nameEnd < 0) {
+			return;
+		}
+		int priceEnd = indexOf(content, PRICE_SEPARATOR, separator + 1, end);
+		if (priceEnd < 0) {
+			priceEnd = end;
+		}
+		String itemName = content.substring(nameStart + 1, nameEnd);
+
+		long cents = centsFromDigits(content, separator + 1, priceEnd);
+		if (cents >= 0) {
+			consumables.put(itemName, cents / CENTS_PER_DOLLAR);
+			pricesInCents.put(itemName, cents);
+		}
+		else {
+			String price = content.substring(separator + 1, priceEnd);
+			consumables.put(itemName, Double.parseDouble(price));
+			pricesInCents.put(itemName, PartyCatalog.toCents(price));
+		}
+	}
+
+	/**
+	 * Converts a plain price such as 8, 8.5 or 8.50, surrounded by optional whitespace, to cents
+	 * @return the price in cents, or -1 if the price is written in some other form
+	 */
+	private static long centsFromDigits(String content, int start, int end) {
+		while (start < end && content.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && content.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		long dollars = 0;
+		int digits = 0;
+		int i = start;
+		for (; i < end && isDigit(content.charAt(i)); i++) {
+			dollars = dollars * 10 + (content.charAt(i) - '0');
+			digits++;
+		}
+		if (digits == 0 || digits > MAX_FAST_DIGITS) {
+			return -1;
+		}
+		long cents = 0;
+		int decimals = 0;
+		if (i < end && content.charAt(i) == DECIMAL_POINT) {
+			for (i++; i < end && isDigit(content.charAt(i)); i++) {
+				cents = cents * 10 + (content.charAt(i) - '0');
+				decimals++;
+			}
+		}
+		if (i != end || decimals > 2) {
+			return -1;
+		}
+		return dollars * 100 + (decimals == 1 ? cents * 10 : cents);
+	}
+
+	private static boolean isDigit(char character) {
+		return character >= '0' && character <= '9';
+	}
+
+	private static int indexOf(String content, char character, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (content.charAt(i) == character) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+}
@@ -0,0 +1,119 @@
+package party_Planning;
+
+/**
+ * One unit in the cheapest-first purchase order: the item bought, the guest it was bought for,
+ * its price and the total spent once it is bought
+ * @author Samarth Desai
+ *
+ */
+public final class Purchase {
+
+	private final int unit;
+	private final int itemId;
+	private final String itemName;
+	private final int guest;
+	private final String guestName;
+	private final long priceCents;
+	private final long runningTotalCents;
+	private final boolean guestSatisfied;
+
+	Purchase(int position, int item, String name, int buyer, String buyerName, long price, long total, boolean satisfied) {
+
+		unit = position;
+		itemId = item;
+		itemName = name;
+		guest = buyer;
+		guestName = buyerName;
+		priceCents = price;
+		runningTotalCents = total;
+		guestSatisfied = satisfied;
+
+	}
+
+	/**
+	 * Sends the position of this unit in the purchase order, starting from 0
+	 * @return
+	 */
+	public int getUnit() {
+		return unit;
+	}
+
+	/**
+	 * Sends the catalog's id of the item bought
+	 * @return
+	 */
+	public int getItemId() {
+		return itemId;
+	}
+
+	/**
+	 * Sends the name of the item bought
+	 * @return
+	 */
+	public String getItemName() {
+		return itemName;
+	}
+
+	/**
+	 * Sends the catalog's index of the guest the unit was bought for
+	 * @return
+	 */
+	public int getGuest() {
+		return guest;
+	}
+
+	/**
+	 * Sends the name of the guest the unit was bought for
+	 * @return
+	 */
+	public String getGuestName() {
+		return guestName;
+	}
+
+	/**
+	 * Sends the price of the unit in cents
+	 * @return
+	 */
+	public long getPriceCents() {
+		return priceCents;
+	}
+
+	/**
+	 * Sends the price of the unit in dollars
+	 * @return
+	 */
+	public double getPrice() {
+		return priceCents / 100.0;
+	}
+
+	/**
+	 * Sends the total spent in cents on this unit and every unit before it
+	 * @return
+	 */
+	public long getRunningTotalCents() {
+		return runningTotalCents;
+	}
+
+	/**
+	 * Sends the total spent in dollars on this unit and every unit before it
+	 * @return
+	 */
+	public double getRunningTotal() {
+		return runningTotalCents / 100.0;
+	}
+
+	/**
+	 * Whether this unit is the last of the guest's listed preferences to be bought,
+	 * so the running total is what it costs to fully satisfy them
+	 * @return
+	 */
+	public boolean isGuestSatisfied() {
+		return guestSatisfied;
+	}
+
+	@Override
+	public String toString() {
+		return unit + ": " + itemName + " for " + guestName + " at " + priceCents + " cents, " + runningTotalCents + " total";
+	}
+
+}
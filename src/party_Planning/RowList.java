@@ -0,0 +1,62 @@
+package party_Planning;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.collections.ObservableListBase;
+
+/**
+ * Read-only observable list of ListView rows that is updated by replacing its contents with a new list of rows.
+ * Only the rows between the longest common prefix and suffix of the old and new rows are replaced, and the whole update
+ * is sent to the ListView as a single change, so showing a plan that is much like the last one touches only the rows that differ
+ * @author Samarth Desai
+ *
+ * @param <E> row type, compared with equals
+ */
+final class RowList<E> extends ObservableListBase<E> {
+
+	private List<E> rows = new ArrayList<E>();
+
+	@Override
+	public E get(int index) {
+		return rows.get(index);
+	}
+
+	@Override
+	public int size() {
+		return rows.size();
+	}
+
+	/**
+	 * Makes the list hold the given rows, firing at most one change
+	 * @param newRows rows to show, which the list takes ownership of
+	 */
+	void update(List<E> newRows) {
+		int oldSize = rows.size();
+		int newSize = newRows.size();
+		int prefix = 0;
+		while (prefix < oldSize && prefix < newSize && rows.get(prefix).equals(newRows.get(prefix))) {
+			prefix++;
+		}
+		int suffix = 0;
+		while (suffix < oldSize - prefix && suffix < newSize - prefix
+				&& rows.get(oldSize - 1 - suffix).equals(newRows.get(newSize - 1 - suffix))) {
+			suffix++;
+		}
+		if (prefix + suffix == oldSize && prefix + suffix == newSize) {
+			return;
+		}
+
+		List<E> removed = new ArrayList<E>(rows.subList(prefix, oldSize - suffix));
+		rows = newRows;
+		beginChange();
+		if (!removed.isEmpty()) {
+			nextRemove(prefix, removed);
+		}
+		if (newSize - suffix > prefix) {
+			nextAdd(prefix, newSize - suffix);
+		}
+		endChange();
+	}
+
+}
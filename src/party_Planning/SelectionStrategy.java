@@ -0,0 +1,19 @@
+package party_Planning;
+
+/**
+ * A way of choosing which food and drinks to buy with a budget. Strategies keep no state between solves,
+ * so one strategy can be shared by any number of threads planning any number of catalogs at once
+ * @author Samarth Desai
+ *
+ */
+public interface SelectionStrategy {
+
+	/**
+	 * Chooses the items to buy within the budget
+	 * @param catalog prices and guest preferences, which are not modified
+	 * @param budget
+	 * @return the items to buy, what they cost and the preferences that could not be afforded
+	 */
+	Plan solve(PartyCatalog catalog, double budget);
+
+}
@@ -0,0 +1,80 @@
+package party_Planning;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Lets a long solve report how far it has got and stop early when its thread is interrupted.
+ *
+ * The engines call in from their inner loops every CHECK_INTERVAL steps. Each call checks the interrupt flag of the
+ * thread that started the solve, so a solve cancelled with Future.cancel(true) ends within a few thousand steps by throwing
+ * a CancellationException instead of running to the end. A thread can set a Listener to be told the phase it is in and
+ * how much of that phase is done. Without a listener a call costs one read of the interrupt flag
+ * @author Samarth Desai
+ *
+ */
+public final class SolveProgress {
+
+	/** Steps of an engine's inner loop between two checks */
+	static final int CHECK_INTERVAL = 4096;
+	private static final String CANCELLED_MESSAGE = "Solve cancelled";
+
+	private static final ThreadLocal<Listener> LISTENERS = new ThreadLocal<Listener>();
+
+	/**
+	 * Told the progress of the solves running on the thread that set it
+	 */
+	public interface Listener {
+
+		/**
+		 * Called on the solving thread as a phase moves along
+		 * @param phase INDEX_BUILD, SELECTION or REMAINING_ITEMS
+		 * @param done
+		 * @param total
+		 */
+		void progress(PlannerMetrics.Phase phase, long done, long total);
+
+	}
+
+	private SolveProgress() {
+	}
+
+	/**
+	 * Sets the listener for solves on the current thread
+	 * @param listener or null to stop listening
+	 */
+	public static void setListener(Listener listener) {
+		if (listener == null) {
+			LISTENERS.remove();
+		}
+		else {
+			LISTENERS.set(listener);
+		}
+	}
+
+	/**
+	 * Checks for cancellation and tells the current thread's listener how far the phase has got
+	 * @param phase
+	 * @param done
+	 * @param total
+	 * @throws CancellationException if the current thread was interrupted
+	 */
+	static void update(PlannerMetrics.Phase phase, long done, long total) {
+		checkCancelled(Thread.currentThread());
+		Listener listener = LISTENERS.get();
+		if (listener != null) {
+			listener.progress(phase, done, total);
+		}
+	}
+
+	/**
+	 * Stops a solve whose thread was interrupted. Workers helping with a solve pass the thread that started it
+	 * @param solver
+	 * @throws CancellationException if the thread was interrupted
+	 */
+	static void checkCancelled(Thread solver) {
+		if (solver.isInterrupted()) {
+			throw new CancellationException(CANCELLED_MESSAGE);
+		}
+	}
+
+}
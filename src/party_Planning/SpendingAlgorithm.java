@@ -1,256 +1,114 @@
 package party_Planning;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Scanner;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * Calculates the optimal food and drinks to buy given a budget, while also keeping track of the items that the user
- * was not able to purchase with the budget constraint
+ * was not able to purchase with the budget constraint.
+ * A SpendingAlgorithm keeps no state between solves, so one instance can be shared by any number of threads
  * @author Samarth Desai
  *
  */
 public class SpendingAlgorithm {
 
-	private static final String FILE_PATH = "src/Party_Files/";
-	private static final String DRINKS_FILE = FILE_PATH + "drinks.txt";
-	private static final String FOOD_FILE = FILE_PATH + "food.txt";
-	private static final String PEOPLE_FILE = FILE_PATH + "people.txt";
-
-	private List<String> preferencesList;
-	private List<String> consumablesList;
-	private List<String> currentList;
-	private Map<String, ArrayList <String>> preferencesMap;
-	private Map<String, ArrayList<String>> tmpPreferences;
-	private Map<String, Double> consumablesMap;
-	private Map<String, Double> tmpConsumables;
-	private Map<String, Integer> itemsBoughtMap;
-	private String guestName;
-	private double budget;
-	private double amountSpent;
-
-	public SpendingAlgorithm () {
-
-		preferencesList = new ArrayList<String>();
-		consumablesList = new ArrayList<String>();
-		preferencesMap = new HashMap<String, ArrayList<String>>();
-		consumablesMap = new HashMap<String, Double>();
-		itemsBoughtMap = new HashMap<String, Integer>();
-
-	}
-
 	/**
-	 * Primary algorithm that uses the budget and three text files to provide the optimal food and drinks to purchase
-	 * @param currentBudget
-	 * @return
+	 * Selection engines that can be used to pick the food and drinks to buy, each backed by one shared stateless strategy
 	 */
-	public Map<String, Integer> selectConsumables(double currentBudget) {
-		
-		createMaps();
-		
-		budget = currentBudget;
-		
-		String cheapestItem;
-		double cheapestValue;
-		List<String> guestsPleased = new ArrayList<String>();
-		List<Integer> preferenceIndices = new ArrayList<Integer>();
-		
-		amountSpent = 0;
-		
-		while (amountSpent < budget && !tmpPreferences.isEmpty()) {
-			cheapestItem = null;
-			cheapestValue = Double.MAX_VALUE;
-			for (Entry<String, ArrayList<String>> preferencesEntry : tmpPreferences.entrySet()) {
-				for (int i = 0; i<preferencesEntry.getValue().size(); i++) {
-					for (Entry<String, Double> itemPriceEntry : tmpConsumables.entrySet()) {
-						if (preferencesEntry.getValue().get(i).equals(itemPriceEntry.getKey())) {
-							if (itemPriceEntry.getValue() < cheapestValue) {
-								guestsPleased.clear();
-								preferenceIndices.clear();
-								cheapestItem = itemPriceEntry.getKey();
-								cheapestValue = itemPriceEntry.getValue();
-								guestsPleased.add(preferencesEntry.getKey());
-								preferenceIndices.add(i);
-							}
-							else if(itemPriceEntry.getValue() == cheapestValue && itemPriceEntry.getKey().equals(cheapestItem)) {
-								guestsPleased.add(preferencesEntry.getKey());
-								preferenceIndices.add(i);
-							}
-						}
-					}
-				}
-			}
-
-			String currentGuest = null;
-			int guestExtra = 0;
-			for (int i = 0; i<guestsPleased.size(); i++) {
-				if (amountSpent + cheapestValue <= budget) {
-					if (guestsPleased.get(i).equals(currentGuest)) {
-						guestExtra++;
-					}
-					tmpPreferences.get(guestsPleased.get(i)).remove(preferenceIndices.get(i).intValue()-guestExtra);
-					if (tmpPreferences.get(guestsPleased.get(i)).isEmpty()) {
-						tmpPreferences.remove(guestsPleased.get(i));
-					}
-					amountSpent += cheapestValue;
-					currentGuest = guestsPleased.get(i);
-					itemsBoughtMap.put(cheapestItem, i+1);
-				}
-				else {
-					return itemsBoughtMap;
-				}
-			}
-			
-			tmpConsumables.remove(cheapestItem);
-			guestsPleased.clear();
-			preferenceIndices.clear();
-			
-			for(Iterator<Entry <String, ArrayList<String>>> iterator = tmpPreferences.entrySet().iterator(); iterator.hasNext();){
-			     Entry<String, ArrayList<String>> entry = iterator.next();
-			     if (entry.getValue().isEmpty()) {
-			          iterator.remove();
-			     }
-			 }			
+	public enum Engine {
+		/** Original round-by-round scan over every guest, preference and price, see LegacySelectionEngine */
+		LEGACY(new LegacySelectionEngine()),
+		/** Inverted index and min-heap, see IndexedSelectionEngine */
+		INDEXED(new IndexedSelectionEngine()),
+		/** Most preferences fulfilled, then the least budget left over, see ExactSelectionEngine */
+		EXACT(new ExactSelectionEngine());
+
+		private final SelectionStrategy strategy;
+
+		private Engine(SelectionStrategy selectionStrategy) {
+			strategy = selectionStrategy;
 		}
-		
-		return itemsBoughtMap;
 
+		/**
+		 * Sends the strategy that solves with this engine
+		 * @return
+		 */
+		public SelectionStrategy getStrategy() {
+			return strategy;
+		}
 	}
-	
-	/**
-	 * Creates copies of the two maps to allow modification of the data stored within
-	 */
-	private void createMaps() {
-		organizeData();
-		
-		tmpPreferences = new HashMap<String, ArrayList<String>>(preferencesMap);
-		preferencesMap.forEach(tmpPreferences::putIfAbsent);
-		tmpConsumables = new HashMap<String, Double>(consumablesMap);
-		consumablesMap.forEach(tmpConsumables::putIfAbsent);
-	}
-	
-	/**
-	 * Reads and parses the three text files, then creates maps that organize the preference and pricing information
-	 */
-	private void organizeData() {
-		
-		fileReader(DRINKS_FILE);
-		fileReader(FOOD_FILE);
-		fileReader(PEOPLE_FILE);
 
-		createPreferencesMap();
-		createConsumablesMap();
-		
+	private final Engine engine;
+
+	public SpendingAlgorithm () {
+		this(Engine.INDEXED);
 	}
 
 	/**
-	 * Reads in a given file and assigns its values to the proper list
-	 * @param fileName
+	 * Creates the algorithm with the given selection engine
+	 * @param selectionEngine
 	 */
-	private void fileReader (String fileName) {
-		File file = new File (fileName);
-		currentList = new ArrayList<String>();
-
-		try {
-
-			Scanner scanner = new Scanner(file);
-			while (scanner.hasNextLine()) {
-				currentList.add(scanner.nextLine());
-			}
-			scanner.close();
-		}
-
-		catch (FileNotFoundException e) {
-			System.out.println("Incorrect File Value");
-		}
+	public SpendingAlgorithm (Engine selectionEngine) {
 
-		if (fileName.equals(PEOPLE_FILE)) {
-			preferencesList = currentList;
-		}
+		engine = selectionEngine;
 
-		else {
-			consumablesList.addAll(currentList);
-		}
 	}
-	
+
 	/**
-	 * Using the preferencesList populated by reading in the people.txt file,
-	 * this creates a map that maps guests to a list of the food and drinks they prefer
+	 * Primary algorithm that uses the budget and the catalog's prices and preferences to provide the optimal food and drinks to purchase
+	 * @param catalog
+	 * @param budget
+	 * @return the items to buy, what they cost and the preferences that could not be afforded
 	 */
-	private void createPreferencesMap() {
-		for (int i = 0; i < preferencesList.size(); i++) {
-			if ((i+1) % 3 == 1) {
-				guestName = preferencesList.get(i);
-				preferencesMap.put(guestName, new ArrayList<String>());
-			}
-			else {
-				if (!preferencesList.get(i).equals("")) {
-					String[] consumablePrefs = preferencesList.get(i).split(", ");
-					List<String> consumablePrefsList = new ArrayList<String>(Arrays.asList(consumablePrefs));
-					preferencesMap.get(guestName).addAll(consumablePrefsList);
-					preferencesMap.put(guestName, preferencesMap.get(guestName));
-				}
-			}
-
-		}
-
+	public Plan solve(PartyCatalog catalog, double budget) {
+		return engine.getStrategy().solve(catalog, budget);
 	}
-
+	
 	/**
-	 * Using the consumablesList populated by reading in the food.txt and drinks.txt files,
-	 * this creates map that maps food and drink items to their unit prices
+	 * Plans several budgets at once from a single cheapest-first purchase order instead of one full solve per budget.
+	 * Always uses the indexed engine, which buys the same items as the original greedy
+	 * @param catalog
+	 * @param budgets
+	 * @return plans in the same order as the budgets
 	 */
-	private void createConsumablesMap() {
-
-		String[] itemAndCost;
-		String itemName;
-		double itemCost;
-
-		for (int i = 0; i < consumablesList.size(); i++) {
-			itemAndCost = consumablesList.get(i).split(":");
-			itemName = extractItem(itemAndCost[0]);
-			itemCost = Double.parseDouble(itemAndCost[1]);
-			consumablesMap.put(itemName, itemCost);
-		}
+	public Plan[] sweep(PartyCatalog catalog, double[] budgets) {
+		return IndexedSelectionEngine.sweep(catalog, budgets);
 	}
-
+	
 	/**
-	 * Parses the food and drink item names by removing the surrounding <>
-	 * @param item
+	 * Streams the units bought with the budget in cheapest-first order, each worked out only when the stream reads it,
+	 * for callers that need the first few purchases or the total at some point rather than a whole plan.
+	 * Always uses the indexed engine, which buys the same items as the original greedy
+	 * @param catalog
+	 * @param budget
 	 * @return
 	 */
-	private String extractItem(String item) {
-		Matcher matcher = Pattern.compile("\\<(.*?)\\>").matcher(item);
-		String parsedName = null;
-		while(matcher.find()) {
-			return (matcher.group(1));
-		}
-		return parsedName;
+	public Stream<Purchase> purchases(PartyCatalog catalog, double budget) {
+		return IndexedSelectionEngine.purchaseStream(catalog, budget);
 	}
 	
 	/**
-	 * Sends map of the remaining items that the user could not purchase
-	 * @return
+	 * Plans each budget with the selected engine. The indexed engine plans them all from one purchase order with a sweep
+	 * @param catalog
+	 * @param budgets
+	 * @return plans in the same order as the budgets
 	 */
-	public Map<String, ArrayList<String>> getRemainingItems(){
-		return tmpPreferences;
+	public Plan[] planAll(PartyCatalog catalog, double[] budgets) {
+		if (engine == Engine.INDEXED) {
+			return sweep(catalog, budgets);
+		}
+		Plan[] plans = new Plan[budgets.length];
+		for (int i = 0; i < budgets.length; i++) {
+			plans[i] = solve(catalog, budgets[i]);
+		}
+		return plans;
 	}
 	
 	/**
-	 * Sends the total cost for the food and drink items that were selected
+	 * Sends the engine this algorithm solves with
 	 * @return
 	 */
-	public double getAmountSpent() {
-		return amountSpent;
+	public Engine getEngine() {
+		return engine;
 	}
 
-}
\ No newline at end of file
+}
@@ -1,7 +1,5 @@
 package party_Planning;
 
-import java.util.ArrayList;
-
 import javafx.animation.FadeTransition;
 import javafx.animation.Timeline;
 import javafx.event.EventHandler;
@@ -58,6 +56,7 @@ public class WelcomeScreen {
 	private static final double FADE_STOP = 0.1;
 
 	private Stage stage;
+	private PartyPlanner partyPlanner;
 	private Pane root;
 	private Scene scene;
 	private Canvas canvas;
@@ -66,10 +65,12 @@ public class WelcomeScreen {
 	/**
 	 * Sets up structure of the Welcome Screen frame
 	 * @param introStage
+	 * @param planner the planner to show once a key is typed, which can be loading in the background meanwhile
 	 */
-	public WelcomeScreen (Stage introStage) {
+	public WelcomeScreen (Stage introStage, PartyPlanner planner) {
 
 		stage = introStage;
+		partyPlanner = planner;
 		root = new Pane();
 		scene = new Scene(root, WIDTH, HEIGHT, BACKGROUND_COLOR);
 		stage.setScene(scene);
@@ -166,24 +167,20 @@ public class WelcomeScreen {
 	}
 
 	/**
-	 * Transitions to main Party Planner when any key is typed
+	 * Transitions to main Party Planner when the first key is typed
 	 */
 	private void beginPlanner() {
 
-		ArrayList<String> input = new ArrayList<String>();
-		stage.getScene().setOnKeyTyped(
+		final Scene welcomeScene = stage.getScene();
+		welcomeScene.setOnKeyTyped(
 				new EventHandler<KeyEvent>()
 				{
 					@Override
 					public void handle(KeyEvent begin)
 					{
-
-						String key = begin.getCode().toString();
-						input.add(key);
-						if(!input.isEmpty()) {
-							PartyPlanner partyPlanner = new PartyPlanner (stage);
-							partyPlanner.createPlanner();
-						}
+						//Further keys typed before the planner shows must not create it again
+						welcomeScene.setOnKeyTyped(null);
+						partyPlanner.createPlanner();
 					}
 				}
 